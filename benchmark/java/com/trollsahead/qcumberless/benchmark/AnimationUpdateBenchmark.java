@@ -0,0 +1,62 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+package com.trollsahead.qcumberless.benchmark;
+
+import com.trollsahead.qcumberless.engine.DesignerEngine;
+import com.trollsahead.qcumberless.engine.FeatureLoader;
+import com.trollsahead.qcumberless.gui.Animation;
+import com.trollsahead.qcumberless.gui.elements.Element;
+import com.trollsahead.qcumberless.model.FeatureBuildState;
+
+public class AnimationUpdateBenchmark extends Benchmark {
+    private static final int UPDATES_PER_RUN = 100;
+
+    public String name() {
+        return "Animation.update(settled)";
+    }
+
+    public void setUp(int size) {
+        for (StringBuilder feature : new SyntheticCorpus(size).features(size)) {
+            Element element = FeatureLoader.parseFeatureFile(feature, "synthetic.feature", new FeatureBuildState());
+            DesignerEngine.featuresRoot.addChild(element);
+            element.unfoldAll();
+        }
+        while (Animation.getActiveCount() > 0) {
+            Animation.advanceClock();
+        }
+    }
+
+    public long run() {
+        for (int i = 0; i < UPDATES_PER_RUN; i++) {
+            Animation.advanceClock();
+            DesignerEngine.cucumberRoot.update(System.currentTimeMillis());
+        }
+        return UPDATES_PER_RUN;
+    }
+
+    public void tearDown() {
+        DesignerEngine.featuresRoot.children.clear();
+    }
+}
@@ -0,0 +1,76 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.trollsahead.qcumberless.benchmark;
+
+import com.trollsahead.qcumberless.engine.DesignerEngine;
+import com.trollsahead.qcumberless.engine.Engine;
+import com.trollsahead.qcumberless.gui.Images;
+import com.trollsahead.qcumberless.gui.elements.Element;
+import com.trollsahead.qcumberless.gui.elements.RootElement;
+import com.trollsahead.qcumberless.model.Step;
+import com.trollsahead.qcumberless.model.StepDefinition;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BenchmarkEnvironment {
+    private static boolean initialized = false;
+
+    public static void initialize() throws Exception {
+        if (initialized) {
+            return;
+        }
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        Images.initialize();
+        Graphics2D g = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB).createGraphics();
+        g.setFont(Engine.FONT_DEFAULT);
+        Engine.fontMetrics = g.getFontMetrics();
+        g.dispose();
+        DesignerEngine.cucumberRoot = new RootElement();
+        DesignerEngine.featuresRoot = new RootElement();
+        DesignerEngine.featuresRoot.rootType = Element.ROOT_FEATURE_EDITOR;
+        DesignerEngine.stepsRoot = new RootElement();
+        DesignerEngine.stepsRoot.rootType = Element.ROOT_STEP_DEFINITIONS;
+        DesignerEngine.cucumberRoot.addChild(DesignerEngine.featuresRoot);
+        DesignerEngine.cucumberRoot.addChild(DesignerEngine.stepsRoot);
+        DesignerEngine.stepDefinitions = new ArrayList<Step>();
+        initialized = true;
+    }
+
+    public static void useStepDefinitions(List<StepDefinition> stepDefinitions) {
+        List<Step> steps = new ArrayList<Step>();
+        for (StepDefinition stepDefinition : stepDefinitions) {
+            Step step = new Step(stepDefinition);
+            step.setShouldRenderKeyword(false);
+            steps.add(step);
+        }
+        DesignerEngine.stepDefinitions = steps;
+    }
+}
@@ -0,0 +1,116 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.trollsahead.qcumberless.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class BenchmarkRunner {
+    private static final int DEFAULT_SIZE = 1000;
+    private static final int DEFAULT_WARMUP_ITERATIONS = 3;
+    private static final int DEFAULT_ITERATIONS = 5;
+
+    private static final Map<String, Benchmark> benchmarks = new LinkedHashMap<String, Benchmark>();
+
+    static {
+        register(new FeatureLexerBenchmark());
+        register(new FeatureLoaderBenchmark());
+        register(new FeatureImportBenchmark());
+        register(new FeatureCacheBenchmark(false));
+        register(new FeatureCacheBenchmark(true));
+        register(new StepMatchingBenchmark(true));
+        register(new StepMatchingBenchmark(false));
+        register(new UpdateStepsBenchmark());
+        register(new FeatureBuilderBenchmark());
+        register(new UndoSnapshotBenchmark());
+        register(new RubyStepDefinitionBenchmark(false));
+        register(new RubyStepDefinitionBenchmark(true));
+        register(new TextLayoutBenchmark());
+        register(new AnimationUpdateBenchmark());
+        register(new TemplatePoolBenchmark());
+        register(new RenderFrameBenchmark(false));
+        register(new RenderFrameBenchmark(true));
+        register(new RenderAllocationBenchmark(false));
+        register(new RenderAllocationBenchmark(true));
+        register(new ConsoleOutputBenchmark(false));
+        register(new ConsoleOutputBenchmark(true));
+        register(new ConsoleScrollBenchmark());
+        register(new LogSearchBenchmark());
+        register(new LogContentionBenchmark());
+        register(new FormatterReplayBenchmark(false));
+        register(new FormatterReplayBenchmark(true));
+        register(new HistorySortBenchmark());
+    }
+
+    private static void register(Benchmark benchmark) {
+        benchmarks.put(benchmark.name(), benchmark);
+    }
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkEnvironment.initialize();
+        int size = Integer.getInteger("benchmark.size", DEFAULT_SIZE);
+        int warmupIterations = Integer.getInteger("benchmark.warmup", DEFAULT_WARMUP_ITERATIONS);
+        int iterations = Integer.getInteger("benchmark.iterations", DEFAULT_ITERATIONS);
+        if (args.length == 0) {
+            for (Benchmark benchmark : benchmarks.values()) {
+                run(benchmark, size, warmupIterations, iterations);
+            }
+            return;
+        }
+        for (String name : args) {
+            Benchmark benchmark = benchmarks.get(name);
+            if (benchmark == null) {
+                System.out.println("Unknown benchmark: " + name + " - available: " + benchmarks.keySet());
+                continue;
+            }
+            run(benchmark, size, warmupIterations, iterations);
+        }
+    }
+
+    private static void run(Benchmark benchmark, int size, int warmupIterations, int iterations) throws Exception {
+        benchmark.setUp(size);
+        try {
+            for (int i = 0; i < warmupIterations; i++) {
+                benchmark.run();
+            }
+            long totalOps = 0;
+            long totalTime = 0;
+            long bestTime = Long.MAX_VALUE;
+            for (int i = 0; i < iterations; i++) {
+                long startTime = System.nanoTime();
+                totalOps += benchmark.run();
+                long time = System.nanoTime() - startTime;
+                totalTime += time;
+                bestTime = Math.min(bestTime, time);
+            }
+            double opsPerSecond = (double) totalOps / ((double) totalTime / 1000000000.0);
+            System.out.println(String.format("%-30s size=%-8d %14.1f ops/s   avg %10.3f ms   best %10.3f ms",
+                    benchmark.name(), size, opsPerSecond, (double) totalTime / iterations / 1000000.0, (double) bestTime / 1000000.0));
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+package com.trollsahead.qcumberless.benchmark;
+
+import com.trollsahead.qcumberless.engine.Engine;
+import com.trollsahead.qcumberless.model.ConsoleOutput;
+
+public class ConsoleOutputBenchmark extends Benchmark {
+    private static final int WRAP_WIDTH = 800;
+    private static final int VISIBLE_ROWS = 40;
+
+    private final boolean rewrap;
+
+    private String[] lines;
+    private ConsoleOutput console;
+    private ConsoleOutput.LogLine[] rows;
+
+    public ConsoleOutputBenchmark(boolean rewrap) {
+        this.rewrap = rewrap;
+    }
+
+    public String name() {
+        return rewrap ? "ConsoleOutput.getTextWrappedRows(resize)" : "ConsoleOutput.appendLog";
+    }
+
+    public void setUp(int size) {
+        SyntheticCorpus corpus = new SyntheticCorpus(size);
+        lines = new String[size * 10];
+        for (int i = 0; i < lines.length; i++) {
+            StringBuilder feature = corpus.feature(i);
+            lines[i] = feature.substring(0, Math.min(feature.length(), 40 + (i % 7) * 40)).replace('\n', ' ');
+        }
+        rows = new ConsoleOutput.LogLine[VISIBLE_ROWS];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new ConsoleOutput.LogLine(null, null);
+        }
+        if (rewrap) {
+            console = new ConsoleOutput();
+            for (String line : lines) {
+                console.appendLog(line);
+            }
+            console.getLog();
+        }
+    }
+
+    public long run() {
+        if (rewrap) {
+            console.getTextWrappedRows(WRAP_WIDTH / 2, Engine.fontMetrics, 0, rows);
+            return console.getTextWrappedRows(WRAP_WIDTH, Engine.fontMetrics, 0, rows);
+        }
+        ConsoleOutput console = new ConsoleOutput();
+        console.getTextWrappedRows(WRAP_WIDTH, Engine.fontMetrics, 0, rows);
+        for (String line : lines) {
+            console.appendLog(line);
+        }
+        console.getLog();
+        console.getTextWrappedRows(WRAP_WIDTH, Engine.fontMetrics, 0, rows);
+        return lines.length;
+    }
+}
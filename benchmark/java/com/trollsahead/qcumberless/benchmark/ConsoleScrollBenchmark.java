@@ -0,0 +1,77 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.trollsahead.qcumberless.benchmark;
+
+import com.trollsahead.qcumberless.model.ConsoleOutput;
+import com.trollsahead.qcumberless.util.ConfigurationManager;
+
+import java.util.List;
+import java.util.Random;
+
+public class ConsoleScrollBenchmark extends Benchmark {
+    private static final int MAX_LINES = 4096;
+    private static final int VISIBLE_LINES = 60;
+    private static final int SCROLLS = 1000;
+
+    private ConsoleOutput console;
+    private String previousMaxLines;
+
+    public String name() {
+        return "ConsoleOutput.getLog(scrolling, spilled)";
+    }
+
+    public void setUp(int size) {
+        previousMaxLines = ConfigurationManager.get("consoleMaxLines");
+        ConfigurationManager.put("consoleMaxLines", String.valueOf(MAX_LINES));
+        SyntheticCorpus corpus = new SyntheticCorpus(size);
+        console = new ConsoleOutput();
+        for (int i = 0; i < size * 100; i++) {
+            StringBuilder feature = corpus.feature(i % size);
+            console.appendLog(i + " " + feature.substring(0, Math.min(feature.length(), 40 + (i % 7) * 40)).replace('\n', ' '));
+            if (i % MAX_LINES == 0) {
+                console.drainLog();
+            }
+        }
+    }
+
+    public long run() {
+        List<ConsoleOutput.LogLine> log = console.getLog();
+        Random random = new Random(17);
+        long characters = 0;
+        for (int i = 0; i < SCROLLS; i++) {
+            int top = random.nextInt(Math.max(1, log.size() - VISIBLE_LINES));
+            for (int j = top; j < top + VISIBLE_LINES && j < log.size(); j++) {
+                characters += log.get(j).log.length();
+            }
+        }
+        return characters > 0 ? SCROLLS : 0;
+    }
+
+    public void tearDown() {
+        console.clearLog();
+        ConfigurationManager.put("consoleMaxLines", previousMaxLines != null ? previousMaxLines : String.valueOf(Integer.MAX_VALUE));
+    }
+}
@@ -0,0 +1,61 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.trollsahead.qcumberless.benchmark;
+
+import com.trollsahead.qcumberless.engine.FeatureLoader;
+import com.trollsahead.qcumberless.model.FeatureBuildState;
+import com.trollsahead.qcumberless.util.FileUtil;
+
+import java.io.File;
+import java.util.List;
+
+public class FeatureImportBenchmark extends Benchmark {
+    private File directory;
+    private String[] files;
+
+    public String name() {
+        return "FeatureLoader.parseFeatureFiles";
+    }
+
+    public void setUp(int size) throws Exception {
+        directory = SyntheticCorpus.createTempDirectory("qcumberless-import");
+        List<StringBuilder> features = new SyntheticCorpus(size).features(size);
+        files = new String[features.size()];
+        for (int i = 0; i < features.size(); i++) {
+            File file = new File(directory, "feature" + i + ".feature");
+            files[i] = FileUtil.writeToFile(file.getAbsolutePath(), features.get(i)).getAbsolutePath();
+        }
+    }
+
+    public long run() {
+        return FeatureLoader.parseFeatureFiles(files, new FeatureBuildState(FeatureBuildState.ADD_STATE_VIEW)).size();
+    }
+
+    public void tearDown() {
+        FileUtil.deleteFilesInDir(directory.getAbsolutePath());
+        directory.delete();
+    }
+}
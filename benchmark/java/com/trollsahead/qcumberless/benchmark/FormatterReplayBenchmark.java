@@ -0,0 +1,197 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.trollsahead.qcumberless.benchmark;
+
+import com.trollsahead.qcumberless.device.DeviceCallback;
+import com.trollsahead.qcumberless.device.generic.GenericDevice;
+import com.trollsahead.qcumberless.engine.LogListener;
+import com.trollsahead.qcumberless.gui.elements.Element;
+import com.trollsahead.qcumberless.model.Screenshot;
+import com.trollsahead.qcumberless.util.ConfigurationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class FormatterReplayBenchmark extends Benchmark {
+    private static final int NOISE_LINES_PER_EVENT = 4;
+
+    private final boolean dispatch;
+
+    private List<String> transcript;
+    private LogListener logListener;
+    private String previousDispatch;
+    private long events;
+
+    public FormatterReplayBenchmark(boolean dispatch) {
+        this.dispatch = dispatch;
+    }
+
+    public String name() {
+        return "GenericDevice.logLine(" + (dispatch ? "dispatch" : "all patterns") + ")";
+    }
+
+    public void setUp(int size) {
+        previousDispatch = ConfigurationManager.get("formatterEventDispatch");
+        ConfigurationManager.put("formatterEventDispatch", Boolean.toString(dispatch));
+        transcript = record(size);
+        GenericDevice device = new GenericDevice();
+        device.setDeviceCallback(new CountingCallback());
+        logListener = device.getDeviceLogListener();
+    }
+
+    public long run() {
+        events = 0;
+        for (String line : transcript) {
+            logListener.logLine(line);
+        }
+        return transcript.size();
+    }
+
+    public void tearDown() {
+        System.out.println("  " + events + " formatter events in " + transcript.size() + " lines");
+        ConfigurationManager.put("formatterEventDispatch", previousDispatch != null ? previousDispatch : "true");
+    }
+
+    private static List<String> record(int size) {
+        Random random = new Random(size);
+        List<String> lines = new ArrayList<String>();
+        lines.add("Executing tasks");
+        for (int feature = 0; feature < size; feature++) {
+            lines.add("Feature: Feature number " + feature);
+            for (int scenario = 0; scenario < 4; scenario++) {
+                boolean outline = scenario == 3;
+                lines.add(outline ? "Scenario Outline: Outline " + scenario : "Scenario: Scenario " + scenario);
+                for (int step = 0; step < 6; step++) {
+                    lines.add("Step: I press the button number " + step + " on screen " + scenario);
+                    addNoise(lines, random);
+                    if (random.nextInt(20) == 0) {
+                        lines.add("Taking screenshoot to /tmp/screenshot_" + feature + "_" + step + ".png from device emulator-5554");
+                        lines.add("Screenshot taken");
+                        lines.add("Step failed: expected the button to be visible (RuntimeError)");
+                    } else {
+                        lines.add("Step success");
+                    }
+                }
+                if (outline) {
+                    lines.add("Outline table");
+                    lines.add("Table row: |name|value|");
+                    for (int row = 0; row < 3; row++) {
+                        lines.add("Table row: |row " + row + "|" + random.nextInt(100) + "|");
+                        addNoise(lines, random);
+                    }
+                }
+            }
+        }
+        return lines;
+    }
+
+    private static void addNoise(List<String> lines, Random random) {
+        for (int i = 0; i < NOISE_LINES_PER_EVENT; i++) {
+            switch (random.nextInt(3)) {
+                case 0:
+                    lines.add("I/ActivityManager(  " + random.nextInt(1000) + "): Displayed com.example.app/.MainActivity: +" + random.nextInt(900) + "ms");
+                    break;
+                case 1:
+                    lines.add("\tat com.example.app.ScreenController.onClick(ScreenController.java:" + random.nextInt(400) + ")");
+                    break;
+                default:
+                    lines.add("D/dalvikvm( " + random.nextInt(1000) + "): GC_CONCURRENT freed " + random.nextInt(4000) + "K, 51% free 2871K/5767K, external 408K/517K");
+                    break;
+            }
+        }
+    }
+
+    private class CountingCallback implements DeviceCallback {
+        public void onPlay() {
+        }
+
+        public void onPause() {
+        }
+
+        public void onResume() {
+        }
+
+        public void onStop() {
+        }
+
+        public void onStepModeInitialized() {
+            events++;
+        }
+
+        public void afterPlayed() {
+        }
+
+        public void afterPlayFailed(String errorMessage) {
+        }
+
+        public void logLine(String line) {
+        }
+
+        public void beforeFeatures() {
+            events++;
+        }
+
+        public void beforeFeature(String name) {
+            events++;
+        }
+
+        public void beforeScenario(String name) {
+            events++;
+        }
+
+        public void beforeBackground(String name) {
+            events++;
+        }
+
+        public void beforeStep(String name) {
+            events++;
+        }
+
+        public void afterStepSuccess() {
+            events++;
+        }
+
+        public void beforeOutlineTable() {
+            events++;
+        }
+
+        public void beforeTableRow(String tableRow) {
+            events++;
+        }
+
+        public void afterStepFailed(String errorMessage) {
+            events++;
+        }
+
+        public void attachScreenshots(Element element, Screenshot... screenshots) {
+        }
+
+        public Element getCurrentElement() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+package com.trollsahead.qcumberless.benchmark;
+
+import com.trollsahead.qcumberless.util.FileUtil;
+import com.trollsahead.qcumberless.util.HistoryHelper;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+public class HistorySortBenchmark extends Benchmark {
+    private File directory;
+    private List<String> dirs;
+
+    public String name() {
+        return "HistoryHelper.sortDirs";
+    }
+
+    public void setUp(int size) throws Exception {
+        directory = SyntheticCorpus.createTempDirectory("qcumberless-history");
+        dirs = new ArrayList<String>();
+        Random random = new Random(size);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < size; i++) {
+            File dir = new File(directory, "run" + i);
+            dir.mkdir();
+            Properties properties = new Properties();
+            properties.put("devicename", "Device " + (i % 3));
+            properties.put("date", Long.toString(now - (long) random.nextInt(1000000) * 1000L));
+            properties.put("tags", "@synthetic");
+            FileOutputStream out = new FileOutputStream(new File(dir, "device.history"));
+            try {
+                properties.store(out, "Q-Cumberless Testing history info");
+            } finally {
+                out.close();
+            }
+            dirs.add(dir.getAbsolutePath());
+        }
+    }
+
+    public long run() {
+        return HistoryHelper.sortDirs(dirs).size();
+    }
+
+    public void tearDown() {
+        for (String dir : dirs) {
+            FileUtil.deleteFilesInDir(dir);
+            new File(dir).delete();
+        }
+        directory.delete();
+    }
+}
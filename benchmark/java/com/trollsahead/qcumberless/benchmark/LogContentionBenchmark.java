@@ -0,0 +1,112 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+package com.trollsahead.qcumberless.benchmark;
+
+import com.trollsahead.qcumberless.engine.Engine;
+import com.trollsahead.qcumberless.engine.LockStatistics;
+import com.trollsahead.qcumberless.model.ConsoleOutput;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+public class LogContentionBenchmark extends Benchmark {
+    private static final int WRITERS = 2;
+    private static final long FRAME_TIME = 4L;
+    private static final int WRAP_WIDTH = 800;
+    private static final int VISIBLE_ROWS = 40;
+
+    private int linesPerWriter;
+    private ConsoleOutput console;
+    private FontMetrics fontMetrics;
+
+    public String name() {
+        return "ConsoleOutput.appendLog(while rendering)";
+    }
+
+    public void setUp(int size) {
+        linesPerWriter = size * 20;
+        BufferedImage image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        fontMetrics = g.getFontMetrics();
+        g.dispose();
+        LockStatistics.LOG.reset();
+    }
+
+    public long run() {
+        console = new ConsoleOutput();
+        final ConsoleOutput.LogLine[] rows = new ConsoleOutput.LogLine[VISIBLE_ROWS];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new ConsoleOutput.LogLine(null, null);
+        }
+        final boolean[] writing = new boolean[] {true};
+        Thread renderer = new Thread(new Runnable() {
+            public void run() {
+                while (writing[0]) {
+                    synchronized (Engine.DATA_LOCK) {
+                        console.drainLog();
+                        console.getTextWrappedRows(WRAP_WIDTH, fontMetrics, 0, rows);
+                        long end = System.currentTimeMillis() + FRAME_TIME;
+                        while (System.currentTimeMillis() < end) {
+                            Thread.yield();
+                        }
+                    }
+                    Thread.yield();
+                }
+            }
+        });
+        Thread[] writers = new Thread[WRITERS];
+        for (int i = 0; i < WRITERS; i++) {
+            final int writer = i;
+            writers[i] = new Thread(new Runnable() {
+                public void run() {
+                    for (int j = 0; j < linesPerWriter; j++) {
+                        console.appendLog("Device " + writer + " line " + j + ": Given I have entered some text into the field");
+                    }
+                }
+            });
+        }
+        renderer.start();
+        for (Thread writer : writers) {
+            writer.start();
+        }
+        try {
+            for (Thread writer : writers) {
+                writer.join();
+            }
+            writing[0] = false;
+            renderer.join();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+        return console.getLog().size();
+    }
+
+    public void tearDown() {
+        long acquisitions = LockStatistics.LOG.getTotalAcquisitions();
+        long waitTime = LockStatistics.LOG.getTotalWaitTime();
+        System.out.println("  log lock wait: " + (acquisitions > 0 ? waitTime / acquisitions : 0) + " ns/drain over " + acquisitions + " drains, " + console.getStatistics());
+    }
+}
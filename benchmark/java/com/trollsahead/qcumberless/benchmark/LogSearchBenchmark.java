@@ -0,0 +1,66 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.trollsahead.qcumberless.benchmark;
+
+import com.trollsahead.qcumberless.model.ConsoleOutput;
+
+public class LogSearchBenchmark extends Benchmark {
+    private static final int LINES_PER_MATCH = 5000;
+    private static final String QUERY = "timeoutexception";
+
+    private ConsoleOutput console;
+
+    public String name() {
+        return "ConsoleOutput.findLine";
+    }
+
+    public void setUp(int size) {
+        SyntheticCorpus corpus = new SyntheticCorpus(size);
+        console = new ConsoleOutput();
+        for (int i = 0; i < size * 100; i++) {
+            StringBuilder feature = corpus.feature(i % size);
+            String line = feature.substring(0, Math.min(feature.length(), 40 + (i % 7) * 40)).replace('\n', ' ');
+            console.appendLog(i % LINES_PER_MATCH == 0 ? line + " TimeoutException" : line);
+            if (i % 10000 == 0) {
+                console.drainLog();
+            }
+        }
+        console.getLog();
+    }
+
+    public long run() {
+        int matches = 0;
+        int line = Integer.MAX_VALUE;
+        while ((line = console.findLine(QUERY, line, false)) != -1) {
+            matches++;
+        }
+        return matches;
+    }
+
+    public void tearDown() {
+        console.clearLog();
+    }
+}
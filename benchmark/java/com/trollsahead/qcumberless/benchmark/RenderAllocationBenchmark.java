@@ -0,0 +1,157 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+package com.trollsahead.qcumberless.benchmark;
+
+import com.trollsahead.qcumberless.engine.DesignerEngine;
+import com.trollsahead.qcumberless.engine.Engine;
+import com.trollsahead.qcumberless.engine.FeatureLoader;
+import com.trollsahead.qcumberless.engine.FlashingMessageManager;
+import com.trollsahead.qcumberless.engine.FrameProfiler;
+import com.trollsahead.qcumberless.engine.Player;
+import com.trollsahead.qcumberless.gui.Animation;
+import com.trollsahead.qcumberless.gui.ButtonBar;
+import com.trollsahead.qcumberless.gui.RenderOptimizer;
+import com.trollsahead.qcumberless.gui.Spotlight;
+import com.trollsahead.qcumberless.gui.Terminal;
+import com.trollsahead.qcumberless.gui.elements.Element;
+import com.trollsahead.qcumberless.model.FeatureBuildState;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class RenderAllocationBenchmark extends Benchmark {
+    private static final int WINDOW_WIDTH = 1600;
+    private static final int WINDOW_HEIGHT = 1000;
+    private static final int FRAMES_PER_RUN = 40;
+    private static final int WARMUP_FRAMES = 4000;
+    private static final int SCROLL_DELTA = 12;
+    private static final long DEFAULT_MAX_BYTES_PER_FRAME = 0;
+
+    private final boolean scrolling;
+
+    private BufferedImage image;
+    private Graphics2D g;
+    private ButtonBar buttonBar;
+    private Spotlight spotlight;
+    private List<Long> bytesPerFrame;
+    private int frame;
+
+    public RenderAllocationBenchmark(boolean scrolling) {
+        this.scrolling = scrolling;
+    }
+
+    public String name() {
+        return "Engine.renderFrame(allocation, " + (scrolling ? "scrolling" : "idle") + ")";
+    }
+
+    public void setUp(int size) {
+        RenderOptimizer.initialize();
+        Engine.windowWidth = WINDOW_WIDTH;
+        Engine.windowHeight = WINDOW_HEIGHT;
+        DesignerEngine.canvasHeight = WINDOW_HEIGHT;
+        DesignerEngine.featuresRoot.setBounds(0, 0, WINDOW_WIDTH / 2, WINDOW_HEIGHT);
+        DesignerEngine.stepsRoot.setBounds(WINDOW_WIDTH / 2, 0, WINDOW_WIDTH / 2, WINDOW_HEIGHT);
+        for (StringBuilder feature : new SyntheticCorpus(size).features(size)) {
+            Element element = FeatureLoader.parseFeatureFile(feature, "synthetic.feature", new FeatureBuildState());
+            DesignerEngine.featuresRoot.addChild(element);
+            element.unfoldAll();
+        }
+        Terminal.initialize();
+        FlashingMessageManager.initialize();
+        buttonBar = new ButtonBar();
+        spotlight = new Spotlight();
+        image = new BufferedImage(WINDOW_WIDTH, WINDOW_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        bytesPerFrame = new ArrayList<Long>();
+        frame = 0;
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            renderFrame();
+        }
+    }
+
+    public long run() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        long startBytes = getAllocatedBytes(threadBean);
+        for (int i = 0; i < FRAMES_PER_RUN; i++) {
+            renderFrame();
+        }
+        long allocatedBytes = getAllocatedBytes(threadBean) - startBytes;
+        if (startBytes >= 0) {
+            bytesPerFrame.add(allocatedBytes / FRAMES_PER_RUN);
+        }
+        return FRAMES_PER_RUN;
+    }
+
+    private void renderFrame() {
+        if (scrolling) {
+            DesignerEngine.featuresRoot.scroll((frame / 50) % 2 == 0 ? -SCROLL_DELTA : SCROLL_DELTA);
+        }
+        frame++;
+        Animation.advanceClock();
+        DesignerEngine.cucumberRoot.update(System.currentTimeMillis());
+        buttonBar.update();
+        Engine.drawBackgroundPicture(g);
+        DesignerEngine.cucumberRoot.render(g);
+        buttonBar.render(g);
+        spotlight.render(g);
+        Player.render(g);
+        FlashingMessageManager.render(g);
+        DesignerEngine.cucumberRoot.renderHints(g);
+        Terminal.render(g);
+        DesignerEngine.cucumberRoot.stickToParentRenderPosition(false);
+        RenderOptimizer.update();
+        FrameProfiler.endFrame();
+    }
+
+    private static long getAllocatedBytes(ThreadMXBean threadBean) {
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    public void tearDown() {
+        DesignerEngine.featuresRoot.children.clear();
+        g.dispose();
+        if (bytesPerFrame.isEmpty()) {
+            System.out.println(name() + ": thread allocation counting is not supported by this JVM");
+            return;
+        }
+        Collections.sort(bytesPerFrame);
+        long median = bytesPerFrame.get(bytesPerFrame.size() / 2);
+        System.out.println(name() + ": median " + median + " bytes/frame, max " + bytesPerFrame.get(bytesPerFrame.size() - 1) + " bytes/frame");
+        long maxBytesPerFrame = Long.getLong("benchmark.maxBytesPerFrame", DEFAULT_MAX_BYTES_PER_FRAME);
+        if (maxBytesPerFrame >= 0 && median > maxBytesPerFrame) {
+            throw new IllegalStateException(name() + " allocates " + median + " bytes per frame in steady state (max " + maxBytesPerFrame + ")");
+        }
+    }
+}
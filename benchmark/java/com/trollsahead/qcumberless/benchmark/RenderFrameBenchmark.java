@@ -0,0 +1,118 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.trollsahead.qcumberless.benchmark;
+
+import com.trollsahead.qcumberless.engine.BackBuffer;
+import com.trollsahead.qcumberless.engine.DesignerEngine;
+import com.trollsahead.qcumberless.engine.Engine;
+import com.trollsahead.qcumberless.engine.FeatureLoader;
+import com.trollsahead.qcumberless.engine.FrameProfiler;
+import com.trollsahead.qcumberless.gui.Animation;
+import com.trollsahead.qcumberless.gui.RenderOptimizer;
+import com.trollsahead.qcumberless.gui.elements.Element;
+import com.trollsahead.qcumberless.model.FeatureBuildState;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.PrintWriter;
+
+public class RenderFrameBenchmark extends Benchmark {
+    private static final int WINDOW_WIDTH = 1600;
+    private static final int WINDOW_HEIGHT = 1000;
+    private static final int FRAMES_PER_RUN = 20;
+
+    private final boolean accelerated;
+
+    private BackBuffer backBuffer;
+    private BufferedImage screen;
+    private Graphics2D screenGraphics;
+
+    public RenderFrameBenchmark(boolean accelerated) {
+        this.accelerated = accelerated;
+    }
+
+    public String name() {
+        return "Engine.renderFrame(" + (accelerated ? "volatile" : "buffered") + ")";
+    }
+
+    public void setUp(int size) {
+        RenderOptimizer.initialize();
+        Engine.windowWidth = WINDOW_WIDTH;
+        Engine.windowHeight = WINDOW_HEIGHT;
+        DesignerEngine.canvasHeight = WINDOW_HEIGHT;
+        DesignerEngine.featuresRoot.setBounds(0, 0, WINDOW_WIDTH / 2, WINDOW_HEIGHT);
+        DesignerEngine.stepsRoot.setBounds(WINDOW_WIDTH / 2, 0, WINDOW_WIDTH / 2, WINDOW_HEIGHT);
+        for (StringBuilder feature : new SyntheticCorpus(size).features(size)) {
+            Element element = FeatureLoader.parseFeatureFile(feature, "synthetic.feature", new FeatureBuildState());
+            DesignerEngine.featuresRoot.addChild(element);
+            element.unfoldAll();
+        }
+        if (accelerated && RenderOptimizer.graphicsConfiguration == null) {
+            System.out.println("No screen device available - " + name() + " measures the buffered image fallback");
+        }
+        backBuffer = BackBuffer.create(WINDOW_WIDTH, WINDOW_HEIGHT, accelerated);
+        screen = new BufferedImage(WINDOW_WIDTH, WINDOW_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        screenGraphics = screen.createGraphics();
+        FrameProfiler.reset();
+    }
+
+    public long run() {
+        for (int i = 0; i < FRAMES_PER_RUN; i++) {
+            backBuffer.validate();
+            Graphics2D g = backBuffer.getGraphics();
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            FrameProfiler.FRAME.begin();
+            FrameProfiler.UPDATE.begin();
+            Animation.advanceClock();
+            DesignerEngine.cucumberRoot.update(System.currentTimeMillis());
+            FrameProfiler.UPDATE.end();
+            Engine.drawBackgroundPicture(g);
+            FrameProfiler.RENDER_ELEMENTS.begin();
+            DesignerEngine.cucumberRoot.render(g);
+            FrameProfiler.RENDER_ELEMENTS.end();
+            FrameProfiler.RENDER_HINTS.begin();
+            DesignerEngine.cucumberRoot.renderHints(g);
+            FrameProfiler.RENDER_HINTS.end();
+            long blitStartTime = System.nanoTime();
+            backBuffer.draw(screenGraphics, null);
+            FrameProfiler.BLIT.record(System.nanoTime() - blitStartTime);
+            FrameProfiler.FRAME.end();
+            FrameProfiler.endFrame();
+        }
+        return FRAMES_PER_RUN;
+    }
+
+    public void tearDown() {
+        if (Boolean.getBoolean("benchmark.profile")) {
+            FrameProfiler.exportPercentileDistribution(new PrintWriter(System.out));
+        }
+        FrameProfiler.reset();
+        DesignerEngine.featuresRoot.children.clear();
+        screenGraphics.dispose();
+        backBuffer.dispose();
+    }
+}
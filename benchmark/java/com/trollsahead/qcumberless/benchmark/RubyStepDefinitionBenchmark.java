@@ -0,0 +1,74 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.trollsahead.qcumberless.benchmark;
+
+import com.trollsahead.qcumberless.util.ConfigurationManager;
+import com.trollsahead.qcumberless.util.FileUtil;
+import com.trollsahead.qcumberless.util.SimpleRubyStepDefinitionParser;
+
+import java.io.File;
+
+public class RubyStepDefinitionBenchmark extends Benchmark {
+    private static final int STEP_DEFINITIONS_PER_FILE = 50;
+
+    private final boolean warm;
+
+    private File directory;
+    private String[] files;
+
+    public RubyStepDefinitionBenchmark(boolean warm) {
+        this.warm = warm;
+    }
+
+    public String name() {
+        return "SimpleRubyStepDefinitionParser." + (warm ? "warm" : "cold");
+    }
+
+    public void setUp(int size) throws Exception {
+        directory = SyntheticCorpus.createTempDirectory("qcumberless-ruby");
+        SyntheticCorpus corpus = new SyntheticCorpus(size);
+        int fileCount = Math.max(1, size / 10);
+        files = new String[fileCount];
+        for (int i = 0; i < fileCount; i++) {
+            files[i] = FileUtil.writeToFile(new File(directory, "steps" + i + ".rb").getAbsolutePath(), corpus.rubyStepDefinitions(i, STEP_DEFINITIONS_PER_FILE)).getAbsolutePath();
+        }
+        ConfigurationManager.put("stepDefinitionCacheFile", new File(directory, "steps.cache").getAbsolutePath());
+        ConfigurationManager.put("stepDefinitionCache", warm ? "true" : "false");
+        if (warm) {
+            SimpleRubyStepDefinitionParser.parseFiles(files);
+        }
+    }
+
+    public long run() {
+        SimpleRubyStepDefinitionParser.parseFiles(files);
+        return files.length * STEP_DEFINITIONS_PER_FILE;
+    }
+
+    public void tearDown() {
+        FileUtil.deleteFilesInDir(directory.getAbsolutePath());
+        directory.delete();
+    }
+}
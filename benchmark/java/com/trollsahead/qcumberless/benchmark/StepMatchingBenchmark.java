@@ -0,0 +1,105 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.trollsahead.qcumberless.benchmark;
+
+import com.trollsahead.qcumberless.engine.DesignerEngine;
+import com.trollsahead.qcumberless.engine.FeatureLoader;
+import com.trollsahead.qcumberless.engine.StepDefinitionIndex;
+import com.trollsahead.qcumberless.model.Step;
+import com.trollsahead.qcumberless.util.Util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+
+public class StepMatchingBenchmark extends Benchmark {
+    private static final int STEP_DEFINITION_COUNT = 1500;
+    private static final int VERIFIED_LINE_COUNT = 100;
+
+    private final boolean coldCache;
+
+    private List<String> lines;
+
+    public StepMatchingBenchmark(boolean coldCache) {
+        this.coldCache = coldCache;
+    }
+
+    public String name() {
+        return "FeatureLoader.findMatchingStep" + (coldCache ? ".cold" : "");
+    }
+
+    public void setUp(int size) {
+        SyntheticCorpus corpus = new SyntheticCorpus(size);
+        BenchmarkEnvironment.useStepDefinitions(corpus.stepDefinitions(Integer.getInteger("benchmark.stepDefinitions", STEP_DEFINITION_COUNT)));
+        lines = corpus.stepLines(size * 10);
+        verifyMatching();
+    }
+
+    private void verifyMatching() {
+        List<Step> anchored = Arrays.asList(new Step("^Given the user logs in$"));
+        if (new StepDefinitionIndex(anchored).findMatch("    Given the user logs in") == null) {
+            throw new IllegalStateException("Indented step does not match an anchored step definition");
+        }
+        StepDefinitionIndex index = new StepDefinitionIndex(DesignerEngine.stepDefinitions);
+        for (String line : lines.subList(0, Math.min(VERIFIED_LINE_COUNT, lines.size()))) {
+            StepDefinitionIndex.Match match = index.findMatch(line);
+            String expected = findFirstMatch(Util.stripLeadingSpaces(line));
+            String actual = match != null ? match.stepDefinition.getDefinition() + Arrays.toString(match.parameters) : null;
+            if (expected == null ? actual != null : !expected.equals(actual)) {
+                throw new IllegalStateException("Step index matched \"" + line + "\" as " + actual + ", expected " + expected);
+            }
+        }
+    }
+
+    private static String findFirstMatch(String line) {
+        for (Step step : DesignerEngine.stepDefinitions) {
+            Matcher matcher = step.getPattern().matcher(line);
+            if (matcher.matches()) {
+                String[] parameters = new String[matcher.groupCount()];
+                for (int i = 0; i < parameters.length; i++) {
+                    parameters[i] = matcher.group(i + 1);
+                }
+                return step.getDefinition() + Arrays.toString(parameters);
+            }
+        }
+        return null;
+    }
+
+    public long run() {
+        if (coldCache) {
+            FeatureLoader.getStepMatchCache().invalidate();
+        }
+        for (String line : lines) {
+            FeatureLoader.findMatchingStep(line);
+        }
+        return lines.size();
+    }
+
+    public void tearDown() {
+        DesignerEngine.stepDefinitions = new ArrayList<Step>();
+    }
+}
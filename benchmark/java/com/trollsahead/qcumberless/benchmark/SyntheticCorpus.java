@@ -0,0 +1,146 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.trollsahead.qcumberless.benchmark;
+
+import com.trollsahead.qcumberless.model.StepDefinition;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class SyntheticCorpus {
+    private static final String[] KEYWORDS = {"Given", "When", "Then", "And", "But"};
+    private static final String[] NOUNS = {"user", "admin", "account", "basket", "order", "invoice", "customer", "report", "message", "device"};
+    private static final String[] VERBS = {"opens", "closes", "creates", "deletes", "updates", "sees", "selects", "submits", "presses", "enters"};
+
+    private final Random random;
+
+    public SyntheticCorpus(long seed) {
+        random = new Random(seed);
+    }
+
+    public static File createTempDirectory(String prefix) throws IOException {
+        File directory = File.createTempFile(prefix, "");
+        if (!directory.delete() || !directory.mkdir()) {
+            throw new IOException("Could not create temporary directory " + directory);
+        }
+        return directory;
+    }
+
+    public List<StringBuilder> features(int count) {
+        List<StringBuilder> features = new ArrayList<StringBuilder>();
+        for (int i = 0; i < count; i++) {
+            features.add(feature(i));
+        }
+        return features;
+    }
+
+    public StringBuilder feature(int index) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# language: en\n");
+        sb.append("@feature").append(index).append(" @regression\n");
+        sb.append("# foldstate: true\n");
+        sb.append("Feature: Synthetic feature number ").append(index).append("\n");
+        sb.append("  As a ").append(noun()).append(" I want to verify things\n\n");
+        sb.append("  Background:\n");
+        sb.append("    ").append(stepLine("Given")).append("\n\n");
+        int scenarios = 3 + random.nextInt(5);
+        for (int s = 0; s < scenarios; s++) {
+            boolean outline = random.nextInt(4) == 0;
+            if (random.nextBoolean()) {
+                sb.append("  @scenario").append(s).append(" @smoke\n");
+            }
+            sb.append("  # foldstate: ").append(random.nextBoolean()).append("\n");
+            sb.append("  ").append(outline ? "Scenario Outline: " : "Scenario: ").append("Scenario ").append(s).append(" of feature ").append(index).append("\n");
+            int steps = 4 + random.nextInt(8);
+            for (int t = 0; t < steps; t++) {
+                if (random.nextInt(10) == 0) {
+                    sb.append("    # a comment about the next step\n");
+                }
+                sb.append("    ").append(stepLine(t == 0 ? "Given" : KEYWORDS[random.nextInt(KEYWORDS.length)])).append("\n");
+                if (random.nextInt(12) == 0) {
+                    sb.append("      | name | value |\n");
+                    sb.append("      | ").append(noun()).append(" | ").append(random.nextInt(1000)).append(" |\n");
+                }
+            }
+            if (outline) {
+                sb.append("    Examples:\n");
+                sb.append("      | ").append(noun()).append(" | count |\n");
+                for (int r = 0; r < 3; r++) {
+                    sb.append("      | ").append(noun()).append(" | ").append(random.nextInt(100)).append(" |\n");
+                }
+            }
+            sb.append("\n");
+        }
+        return sb;
+    }
+
+    public List<StepDefinition> stepDefinitions(int count) {
+        List<StepDefinition> definitions = new ArrayList<StepDefinition>();
+        for (int i = 0; i < count; i++) {
+            StepDefinition definition = new StepDefinition("(.*) the " + NOUNS[i % NOUNS.length] + " " + VERBS[(i / NOUNS.length) % VERBS.length] + " item " + i + " with \"(.*)\"");
+            definition.addHook(KEYWORDS);
+            definition.addHook(new String[] {"*"});
+            definitions.add(definition);
+        }
+        return definitions;
+    }
+
+    public StringBuilder rubyStepDefinitions(int fileIndex, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            int item = fileIndex * count + i;
+            if (random.nextInt(4) == 0) {
+                sb.append("# qcumberless (").append(noun()).append("|").append(noun()).append(")\n");
+                sb.append("When /^the (\\w+) ").append(VERBS[item % VERBS.length]).append(" item ").append(item).append("$/ do |noun|\n");
+            } else {
+                sb.append(KEYWORDS[random.nextInt(3)]).append(" /^the (user|admin|customer) ").append(VERBS[item % VERBS.length]).append(" item ").append(item).append(" with \"([^\"]*)\"$/ do |who, what|\n");
+            }
+            sb.append("  performAction('").append(VERBS[item % VERBS.length]).append("', who, what)\n");
+            sb.append("end\n\n");
+        }
+        return sb;
+    }
+
+    public List<String> stepLines(int count) {
+        List<String> lines = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            lines.add("    " + stepLine(KEYWORDS[random.nextInt(KEYWORDS.length)]));
+        }
+        return lines;
+    }
+
+    public String stepLine(String keyword) {
+        int item = random.nextInt(2000);
+        return keyword + " the " + NOUNS[item % NOUNS.length] + " " + VERBS[(item / NOUNS.length) % VERBS.length] + " item " + item + " with \"" + noun() + "\"";
+    }
+
+    private String noun() {
+        return NOUNS[random.nextInt(NOUNS.length)];
+    }
+}
@@ -0,0 +1,75 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+package com.trollsahead.qcumberless.benchmark;
+
+import com.trollsahead.qcumberless.gui.RenderOptimizer;
+
+import java.util.Random;
+
+import static com.trollsahead.qcumberless.gui.RenderOptimizer.ImageTemplate;
+
+public class TemplatePoolBenchmark extends Benchmark {
+    private static final int FRAMES_PER_RUN = 60;
+    private static final int ELEMENTS_PER_FRAME = 40;
+
+    private int[] widths;
+    private int[] heights;
+    private int[] growth;
+    private int frame;
+
+    public String name() {
+        return "RenderOptimizer.getImageTemplate(resizing)";
+    }
+
+    public void setUp(int size) {
+        RenderOptimizer.initialize();
+        Random random = new Random(size);
+        widths = new int[ELEMENTS_PER_FRAME];
+        heights = new int[ELEMENTS_PER_FRAME];
+        growth = new int[ELEMENTS_PER_FRAME];
+        for (int i = 0; i < ELEMENTS_PER_FRAME; i++) {
+            widths[i] = 120 + random.nextInt(360);
+            heights[i] = 20 + random.nextInt(4) * 16;
+            growth[i] = random.nextInt(5) - 2;
+        }
+        frame = 0;
+    }
+
+    public long run() {
+        for (int i = 0; i < FRAMES_PER_RUN; i++) {
+            int offset = (frame++ % 40) - 20;
+            for (int j = 0; j < ELEMENTS_PER_FRAME; j++) {
+                ImageTemplate template = RenderOptimizer.getImageTemplate(widths[j] + offset * growth[j], heights[j]);
+                template.graphics.fillRect(0, 0, 1, 1);
+            }
+            RenderOptimizer.update();
+        }
+        return FRAMES_PER_RUN * ELEMENTS_PER_FRAME;
+    }
+
+    public void tearDown() {
+        System.out.println(RenderOptimizer.getStatistics());
+    }
+}
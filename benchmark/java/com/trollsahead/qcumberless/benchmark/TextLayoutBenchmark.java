@@ -0,0 +1,79 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+package com.trollsahead.qcumberless.benchmark;
+
+import com.trollsahead.qcumberless.engine.FeatureLoader;
+import com.trollsahead.qcumberless.gui.elements.BaseBarElement;
+import com.trollsahead.qcumberless.gui.elements.Element;
+import com.trollsahead.qcumberless.model.FeatureBuildState;
+import com.trollsahead.qcumberless.model.Step;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.trollsahead.qcumberless.model.Step.CucumberStepPart;
+
+public class TextLayoutBenchmark extends Benchmark {
+    private static final int[] WIDTHS = {180, 240, 320, 480};
+
+    private List<Step> steps;
+
+    public String name() {
+        return "CucumberStepPart.wrapText";
+    }
+
+    public void setUp(int size) {
+        steps = new ArrayList<Step>();
+        for (StringBuilder feature : new SyntheticCorpus(size).features(size)) {
+            collectSteps(FeatureLoader.parseFeatureFile(feature, "synthetic.feature", new FeatureBuildState()));
+        }
+    }
+
+    private void collectSteps(Element element) {
+        if (element instanceof BaseBarElement) {
+            steps.add(((BaseBarElement) element).step);
+        }
+        for (Element child : element.children) {
+            collectSteps(child);
+        }
+    }
+
+    public long run() {
+        for (int width : WIDTHS) {
+            for (Step step : steps) {
+                step.setRenderWidth(width);
+                int x = 0;
+                int y = 0;
+                for (CucumberStepPart part : step.getParts()) {
+                    part.wrapText(x, y);
+                    x = part.endX;
+                    y = part.endY;
+                }
+                step.setTextDirty(false);
+            }
+        }
+        return WIDTHS.length * steps.size();
+    }
+}
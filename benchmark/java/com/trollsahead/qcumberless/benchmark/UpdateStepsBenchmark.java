@@ -0,0 +1,76 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.trollsahead.qcumberless.benchmark;
+
+import com.trollsahead.qcumberless.engine.DesignerEngine;
+import com.trollsahead.qcumberless.engine.FeatureLoader;
+import com.trollsahead.qcumberless.gui.elements.BaseBarElement;
+import com.trollsahead.qcumberless.gui.elements.Element;
+import com.trollsahead.qcumberless.gui.elements.RootElement;
+import com.trollsahead.qcumberless.model.FeatureBuildState;
+import com.trollsahead.qcumberless.model.Step;
+
+import java.util.ArrayList;
+
+public class UpdateStepsBenchmark extends Benchmark {
+    private static final int STEP_DEFINITION_COUNT = 1500;
+
+    private RootElement root;
+    private int stepCount;
+
+    public String name() {
+        return "FeatureLoader.updateSteps";
+    }
+
+    public void setUp(int size) {
+        SyntheticCorpus corpus = new SyntheticCorpus(size);
+        DesignerEngine.stepDefinitions = new ArrayList<Step>();
+        root = new RootElement();
+        for (StringBuilder feature : corpus.features(size)) {
+            root.addChild(FeatureLoader.parseFeatureFile(feature, "synthetic.feature", new FeatureBuildState()));
+        }
+        BenchmarkEnvironment.useStepDefinitions(corpus.stepDefinitions(Integer.getInteger("benchmark.stepDefinitions", STEP_DEFINITION_COUNT)));
+        stepCount = countSteps(root);
+    }
+
+    public long run() {
+        FeatureLoader.getStepMatchCache().invalidate();
+        FeatureLoader.updateSteps(root, null);
+        return stepCount;
+    }
+
+    private static int countSteps(Element element) {
+        int count = element.type == BaseBarElement.TYPE_STEP ? 1 : 0;
+        for (Element child : element.children) {
+            count += countSteps(child);
+        }
+        return count;
+    }
+
+    public void tearDown() {
+        DesignerEngine.stepDefinitions = new ArrayList<Step>();
+    }
+}
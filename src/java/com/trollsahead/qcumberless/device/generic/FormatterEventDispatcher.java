@@ -0,0 +1,116 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.trollsahead.qcumberless.device.generic;
+
+import java.util.regex.Pattern;
+
+class FormatterEventDispatcher {
+    private static final String META_CHARACTERS = "\\^$.|?*+()[]{}";
+    private static final String QUANTIFIERS = "?*+";
+    private static final int TABLE_SIZE = 128;
+
+    private final String[][] literals = new String[TABLE_SIZE][];
+    private final int[][] events = new int[TABLE_SIZE][];
+    private int alwaysChecked = 0;
+
+    FormatterEventDispatcher(Pattern[] patterns) {
+        for (int event = 0; event < patterns.length; event++) {
+            String literal = getRequiredLiteral(patterns[event]);
+            if (literal == null || literal.charAt(0) >= TABLE_SIZE) {
+                alwaysChecked |= 1 << event;
+            } else {
+                add(literal.charAt(0), literal, event);
+            }
+        }
+    }
+
+    private void add(char ch, String literal, int event) {
+        int count = literals[ch] != null ? literals[ch].length : 0;
+        String[] newLiterals = new String[count + 1];
+        int[] newEvents = new int[count + 1];
+        if (count > 0) {
+            System.arraycopy(literals[ch], 0, newLiterals, 0, count);
+            System.arraycopy(events[ch], 0, newEvents, 0, count);
+        }
+        newLiterals[count] = literal;
+        newEvents[count] = event;
+        literals[ch] = newLiterals;
+        events[ch] = newEvents;
+    }
+
+    int getCandidateEvents(String log) {
+        int candidates = alwaysChecked;
+        for (int i = 0; i < log.length(); i++) {
+            char ch = log.charAt(i);
+            if (ch >= TABLE_SIZE || literals[ch] == null) {
+                continue;
+            }
+            String[] chLiterals = literals[ch];
+            for (int j = 0; j < chLiterals.length; j++) {
+                int event = 1 << events[ch][j];
+                if ((candidates & event) == 0 && log.startsWith(chLiterals[j], i)) {
+                    candidates |= event;
+                }
+            }
+        }
+        return candidates;
+    }
+
+    static String getRequiredLiteral(Pattern pattern) {
+        if (pattern == null || pattern.flags() != 0) {
+            return null;
+        }
+        String regexp = pattern.pattern();
+        if (regexp.indexOf('|') != -1 || regexp.indexOf('[') != -1 || regexp.indexOf('{') != -1 || regexp.contains("(?")) {
+            return null;
+        }
+        String longest = null;
+        StringBuilder run = new StringBuilder();
+        int depth = 0;
+        for (int i = 0; i <= regexp.length(); i++) {
+            char ch = i < regexp.length() ? regexp.charAt(i) : '\0';
+            if (i < regexp.length() && depth == 0 && META_CHARACTERS.indexOf(ch) == -1) {
+                run.append(ch);
+                continue;
+            }
+            if (QUANTIFIERS.indexOf(ch) != -1 && run.length() > 0) {
+                run.setLength(run.length() - 1);
+            }
+            if (run.length() > 0 && (longest == null || run.length() > longest.length())) {
+                longest = run.toString();
+            }
+            run.setLength(0);
+            if (ch == '(') {
+                depth++;
+            } else if (ch == ')' && depth > 0) {
+                depth--;
+            } else if (ch == '\\') {
+                i++;
+            }
+        }
+        return longest;
+    }
+}
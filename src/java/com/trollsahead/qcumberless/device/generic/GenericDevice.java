@@ -30,6 +30,7 @@ import com.trollsahead.qcumberless.device.DeviceCallback;
 import com.trollsahead.qcumberless.engine.LogListener;
 import com.trollsahead.qcumberless.gui.elements.Element;
 import com.trollsahead.qcumberless.model.Screenshot;
+import com.trollsahead.qcumberless.util.ConfigurationManager;
 import com.trollsahead.qcumberless.util.Util;
 
 import static com.trollsahead.qcumberless.engine.ExecutionHelper.ExecutionStopper;
@@ -60,6 +61,21 @@ public class GenericDevice extends Device {
     private static final Pattern patternScreenshotTakenMessage = Pattern.compile("Screenshot taken");
     private static final Pattern patternStepModeInitialized = Pattern.compile("Step mode initialized");
 
+    private static final int EVENT_STARTING = 0;
+    private static final int EVENT_STARTING_FEATURE = 1;
+    private static final int EVENT_STARTING_BACKGROUND = 2;
+    private static final int EVENT_STARTING_SCENARIO = 3;
+    private static final int EVENT_STARTING_SCENARIO_OUTLINE = 4;
+    private static final int EVENT_RUNNING_STEP = 5;
+    private static final int EVENT_STEP_SUCCESS = 6;
+    private static final int EVENT_STARTING_OUTLINE_TABLE = 7;
+    private static final int EVENT_STARTING_TABLE_ROW = 8;
+    private static final int EVENT_STEP_FAILED = 9;
+    private static final int EVENT_SCREENSHOT_BEING_TAKEN = 10;
+    private static final int EVENT_SCREENSHOT_TAKEN = 11;
+    private static final int EVENT_STEP_MODE_INITIALIZED = 12;
+    private static final int EVENT_COUNT = 13;
+
     private static BufferedImage thumbnailNormal;
     private static BufferedImage thumbnailHighlight;
     private static BufferedImage thumbnailPressed;
@@ -74,6 +90,8 @@ public class GenericDevice extends Device {
     
     private boolean isRunning = false;
 
+    private FormatterEventDispatcher formatterEventDispatcher = null;
+
     static {
         try {
             thumbnailNormal = ImageIO.read(GenericDevice.class.getResource("/resources/pictures/generic_device_normal.png"));
@@ -155,19 +173,12 @@ public class GenericDevice extends Device {
         }
 
         public void logLine(String log) {
-            checkStarting(log);
-            checkStartingFeature(log);
-            checkStartingBackground(log);
-            checkStartingScenario(log);
-            checkStartingScenarioOutline(log);
-            checkRunningStep(log);
-            checkStepSuccess(log);
-            checkStartingOutlineTable(log);
-            checkStartingTableRow(log);
-            checkStepFailed(log);
-            checkScreenshotBeingTaken(log);
-            checkScreenshotTaken(log);
-            checkStepModeInitialized(log);
+            int events = getFormatterEventDispatcher().getCandidateEvents(log);
+            for (int event = 0; events != 0; event++, events >>>= 1) {
+                if ((events & 1) != 0) {
+                    checkEvent(event, log);
+                }
+            }
             deviceCallback.logLine(log);
         }
 
@@ -176,6 +187,77 @@ public class GenericDevice extends Device {
         }
     };
 
+    public LogListener getDeviceLogListener() {
+        return deviceLogListener;
+    }
+
+    private FormatterEventDispatcher getFormatterEventDispatcher() {
+        if (formatterEventDispatcher == null) {
+            Pattern[] patterns = new Pattern[EVENT_COUNT];
+            if (!"false".equalsIgnoreCase(ConfigurationManager.get("formatterEventDispatch"))) {
+                patterns[EVENT_STARTING] = getPatternStarting();
+                patterns[EVENT_STARTING_FEATURE] = getPatternStartingFeature();
+                patterns[EVENT_STARTING_BACKGROUND] = getPatternStartingBackground();
+                patterns[EVENT_STARTING_SCENARIO] = getPatternStartingScenario();
+                patterns[EVENT_STARTING_SCENARIO_OUTLINE] = getPatternStartingScenarioOutline();
+                patterns[EVENT_RUNNING_STEP] = getPatternRunningStep();
+                patterns[EVENT_STEP_SUCCESS] = getPatternStepSuccess();
+                patterns[EVENT_STARTING_OUTLINE_TABLE] = getPatternStartingOutlineTable();
+                patterns[EVENT_STARTING_TABLE_ROW] = getPatternStartingTableRow();
+                patterns[EVENT_STEP_FAILED] = getPatternStepFailed();
+                patterns[EVENT_SCREENSHOT_BEING_TAKEN] = getPatternScreenshotBeingTakenMessage();
+                patterns[EVENT_SCREENSHOT_TAKEN] = getPatternScreenshotTakenMessage();
+                patterns[EVENT_STEP_MODE_INITIALIZED] = getPatternStepModeInitialized();
+            }
+            formatterEventDispatcher = new FormatterEventDispatcher(patterns);
+        }
+        return formatterEventDispatcher;
+    }
+
+    private void checkEvent(int event, String log) {
+        switch (event) {
+            case EVENT_STARTING:
+                checkStarting(log);
+                break;
+            case EVENT_STARTING_FEATURE:
+                checkStartingFeature(log);
+                break;
+            case EVENT_STARTING_BACKGROUND:
+                checkStartingBackground(log);
+                break;
+            case EVENT_STARTING_SCENARIO:
+                checkStartingScenario(log);
+                break;
+            case EVENT_STARTING_SCENARIO_OUTLINE:
+                checkStartingScenarioOutline(log);
+                break;
+            case EVENT_RUNNING_STEP:
+                checkRunningStep(log);
+                break;
+            case EVENT_STEP_SUCCESS:
+                checkStepSuccess(log);
+                break;
+            case EVENT_STARTING_OUTLINE_TABLE:
+                checkStartingOutlineTable(log);
+                break;
+            case EVENT_STARTING_TABLE_ROW:
+                checkStartingTableRow(log);
+                break;
+            case EVENT_STEP_FAILED:
+                checkStepFailed(log);
+                break;
+            case EVENT_SCREENSHOT_BEING_TAKEN:
+                checkScreenshotBeingTaken(log);
+                break;
+            case EVENT_SCREENSHOT_TAKEN:
+                checkScreenshotTaken(log);
+                break;
+            case EVENT_STEP_MODE_INITIALIZED:
+                checkStepModeInitialized(log);
+                break;
+        }
+    }
+
     protected void checkStarting(String log) {
         Matcher matcher = getPatternStarting().matcher(log);
         if (matcher.find()) {
@@ -0,0 +1,208 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.trollsahead.qcumberless.engine;
+
+import com.trollsahead.qcumberless.gui.RenderOptimizer;
+import com.trollsahead.qcumberless.util.ConfigurationManager;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.ImageObserver;
+import java.awt.image.VolatileImage;
+
+public abstract class BackBuffer {
+    private static final int MAX_CONSECUTIVE_LOST_FRAMES = 10;
+
+    protected int width;
+    protected int height;
+    protected Graphics2D graphics;
+
+    public static boolean isAccelerationEnabled() {
+        return !"false".equalsIgnoreCase(ConfigurationManager.get("acceleratedBackbuffer"));
+    }
+
+    public static BackBuffer create(int width, int height) {
+        return create(width, height, isAccelerationEnabled());
+    }
+
+    public static BackBuffer create(int width, int height, boolean accelerated) {
+        if (accelerated) {
+            BackBuffer backBuffer = VolatileBackBuffer.create(width, height);
+            if (backBuffer != null) {
+                return backBuffer;
+            }
+        }
+        return new ImageBackBuffer(width, height);
+    }
+
+    protected BackBuffer(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    protected void initializeGraphics(Graphics2D graphics) {
+        if (this.graphics != null) {
+            this.graphics.dispose();
+        }
+        this.graphics = graphics;
+        graphics.setFont(Engine.FONT_DEFAULT);
+        graphics.setColor(Color.BLACK);
+        graphics.fillRect(0, 0, width + 1, height + 1);
+    }
+
+    public Graphics2D getGraphics() {
+        return graphics;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public void validate() {
+    }
+
+    public boolean isContentLost() {
+        return false;
+    }
+
+    public boolean isFailing() {
+        return false;
+    }
+
+    public boolean isAccelerated() {
+        return false;
+    }
+
+    public void dispose() {
+        if (graphics != null) {
+            graphics.dispose();
+            graphics = null;
+        }
+    }
+
+    public abstract Image getImage();
+
+    public abstract void draw(Graphics g, ImageObserver observer);
+
+    private static class ImageBackBuffer extends BackBuffer {
+        private BufferedImage image;
+
+        public ImageBackBuffer(int width, int height) {
+            super(width, height);
+            if (RenderOptimizer.graphicsConfiguration != null) {
+                image = RenderOptimizer.graphicsConfiguration.createCompatibleImage(width, height);
+            } else {
+                image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            }
+            initializeGraphics(image.createGraphics());
+        }
+
+        public Image getImage() {
+            return image;
+        }
+
+        public void draw(Graphics g, ImageObserver observer) {
+            g.drawImage(image, 0, 0, observer);
+        }
+    }
+
+    private static class VolatileBackBuffer extends BackBuffer {
+        private GraphicsConfiguration graphicsConfiguration;
+        private VolatileImage image;
+        private int lostFrames = 0;
+
+        public static VolatileBackBuffer create(int width, int height) {
+            if (RenderOptimizer.graphicsConfiguration == null) {
+                return null;
+            }
+            try {
+                return new VolatileBackBuffer(RenderOptimizer.graphicsConfiguration, width, height);
+            } catch (Exception e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+
+        private VolatileBackBuffer(GraphicsConfiguration graphicsConfiguration, int width, int height) {
+            super(width, height);
+            this.graphicsConfiguration = graphicsConfiguration;
+            createImage();
+        }
+
+        private void createImage() {
+            if (image != null) {
+                image.flush();
+            }
+            image = graphicsConfiguration.createCompatibleVolatileImage(width, height);
+            initializeGraphics(image.createGraphics());
+        }
+
+        public void validate() {
+            int status = image.validate(graphicsConfiguration);
+            if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                createImage();
+                lostFrames++;
+            } else if (status == VolatileImage.IMAGE_RESTORED) {
+                lostFrames++;
+            } else {
+                lostFrames = 0;
+            }
+        }
+
+        public boolean isContentLost() {
+            return image.contentsLost();
+        }
+
+        public boolean isFailing() {
+            return lostFrames > MAX_CONSECUTIVE_LOST_FRAMES;
+        }
+
+        public boolean isAccelerated() {
+            return image.getCapabilities().isAccelerated();
+        }
+
+        public Image getImage() {
+            return image;
+        }
+
+        public void draw(Graphics g, ImageObserver observer) {
+            if (image.contentsLost()) {
+                FrameScheduler.requestFrame();
+                return;
+            }
+            g.drawImage(image, 0, 0, observer);
+        }
+
+        public void dispose() {
+            super.dispose();
+            image.flush();
+        }
+    }
+}
@@ -46,7 +46,9 @@ import java.util.*;
 import java.util.List;
 
 public class DesignerEngine implements CucumberlessEngine {
+    private static final Font PROFILER_FONT = new Font("Courier New", Font.PLAIN, 12);
     private static final int SCROLL_WHEEL_IMPACT_CANVAS = BaseBarElement.RENDER_HEIGHT_MINIMUM;
+    private static final long FPS_TEXT_UPDATE_PERIOD = 1000L;
 
     public static RootElement cucumberRoot = null;
     public static RootElement featuresRoot = null;
@@ -59,13 +61,17 @@ public class DesignerEngine implements CucumberlessEngine {
     private static Element touchedElement = null;
     private static RootElement touchedRootElement = null;
 
-    public static List<Step> stepDefinitions = null;
+    public static volatile List<Step> stepDefinitions = null;
 
     public static Element lastAddedElement = null;
 
     public static int dragSplitterX = 0;
 
     private static boolean canvasHasMouseFocus = true;
+
+    private static String fpsText = null;
+    private static String lockStatisticsText = null;
+    private static long fpsTextUpdateTime = 0;
     public static int canvasHeight;
 
     public static ButtonBar buttonBar;
@@ -104,7 +110,7 @@ public class DesignerEngine implements CucumberlessEngine {
 
     public void initialize() {
         if (!Util.isEmpty(ConfigurationManager.get("importFeaturesOnStartup"))) {
-            importFeatures(new File[]{new File(ConfigurationManager.get("featuresPath"))});
+            importFeatures(new File[]{new File(ConfigurationManager.get("featuresPath"))}, FeatureCache.isEnabled());
         } else {
             scratchFeatures(true);
         }
@@ -149,17 +155,25 @@ public class DesignerEngine implements CucumberlessEngine {
     public void render(Graphics2D g) {
         calculateCanvasHeight();
         clear(g);
+        FrameProfiler.RENDER_ELEMENTS.begin();
         cucumberRoot.render(g);
+        FrameProfiler.RENDER_ELEMENTS.end();
+        FrameProfiler.RENDER_OVERLAYS.begin();
         buttonBar.render(g);
         spotlight.render(g);
         Player.render(g);
         FlashingMessageManager.render(g);
+        FrameProfiler.RENDER_OVERLAYS.end();
+        FrameProfiler.RENDER_HINTS.begin();
         cucumberRoot.renderHints(g);
+        FrameProfiler.RENDER_HINTS.end();
+        FrameProfiler.RENDER_OVERLAYS.begin();
         renderFps(g);
         Terminal.render(g);
         if (DropDown.isVisible) {
             DropDown.render(g);
         }
+        FrameProfiler.RENDER_OVERLAYS.end();
     }
 
     public void postRender() {
@@ -226,11 +240,17 @@ public class DesignerEngine implements CucumberlessEngine {
     public void keyPressed(KeyEvent keyEvent) {
         if (!EditBox.isVisible) {
             synchronized (Engine.DATA_LOCK) {
+                if (isMouseInsideTerminalArea() && Terminal.searchKeyPressed(keyEvent)) {
+                    return;
+                }
                 spotlight.searchKeyPressed(keyEvent);
             }
             if (keyEvent.getKeyChar() == '!') {
                 Engine.fpsShow = !Engine.fpsShow;
             }
+            if (keyEvent.getKeyChar() == '#' && Engine.fpsShow) {
+                exportFrameProfile();
+            }
             if (Util.isEmpty(spotlight.searchString)) {
                 if (keyEvent.getKeyChar() == ' ') {
                     switchColorScheme();
@@ -317,9 +337,44 @@ public class DesignerEngine implements CucumberlessEngine {
         if (!Engine.fpsShow) {
             return;
         }
-        String str = "FPS: " + Engine.fpsLastCount;
-        int x = (Engine.windowWidth - Engine.fontMetrics.stringWidth(str)) / 2;
+        long time = System.currentTimeMillis();
+        if (fpsText == null || time - fpsTextUpdateTime >= FPS_TEXT_UPDATE_PERIOD) {
+            lockStatisticsText = LockStatistics.getStatistics();
+            fpsText = "FPS: " + Engine.fpsLastCount + "   " + FrameScheduler.getStatistics();
+            fpsTextUpdateTime = time;
+        }
         int y = canvasHeight - 5 - ButtonBar.BUTTONBAR_HEIGHT;
+        renderCenteredString(g, lockStatisticsText, y - Engine.fontMetrics.getHeight());
+        renderCenteredString(g, fpsText, y);
+        renderFrameProfile(g);
+    }
+
+    private void renderFrameProfile(Graphics g) {
+        Font oldFont = g.getFont();
+        g.setFont(PROFILER_FONT);
+        int y = 20;
+        int lineHeight = g.getFontMetrics().getHeight();
+        List<String> lines = FrameProfiler.getStatistics();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            y += lineHeight;
+            g.setColor(Color.BLACK);
+            g.drawString(line, 11, y + 1);
+            g.setColor(Color.WHITE);
+            g.drawString(line, 10, y);
+        }
+        g.setFont(oldFont);
+    }
+
+    private void exportFrameProfile() {
+        String filename = FrameProfiler.exportPercentileDistribution(new File(System.getProperty("user.dir")));
+        if (filename != null) {
+            FlashingMessageManager.addMessage(new FlashingMessage("Frame profile saved as '" + filename + "'", FlashingMessage.STANDARD_TIMEOUT));
+        }
+    }
+
+    private void renderCenteredString(Graphics g, String str, int y) {
+        int x = (Engine.windowWidth - Engine.fontMetrics.stringWidth(str)) / 2;
         g.setColor(Color.BLACK);
         g.drawString(str, x + 1, y + 1);
         g.setColor(Color.WHITE);
@@ -457,28 +512,47 @@ public class DesignerEngine implements CucumberlessEngine {
                 Map<String, List<StepDefinition>> stepDefinitionMap = plugin.getStepDefinitions();
                 synchronized (Engine.DATA_LOCK) {
                     CucumberStepDefinitionLoader.parseStepDefinitions(stepDefinitionMap);
-                    featuresRoot.updateSteps();
+                }
+                ProgressBar progressBar = new ProgressBar("Matching steps");
+                FlashingMessageManager.addMessage(progressBar);
+                try {
+                    FeatureLoader.updateSteps(featuresRoot, progressBar);
+                } finally {
+                    FlashingMessageManager.removeMessage(progressBar);
                 }
             }
         }).start();
     }
 
     public static void importFeatures(File[] files) {
+        importFeatures(files, false);
+    }
+
+    public static void importFeatures(File[] files, boolean useCache) {
         if (files == null || files.length == 0) {
             Engine.resetFps();
             return;
         }
-        synchronized (Engine.DATA_LOCK) {
-            try {
-                FeatureLoader.parseFeatureFilesAndPushToDesignerRoot(FileUtil.getFeatureFiles(files));
-            } catch (Exception e) {
-                e.printStackTrace();
+        try {
+            long startTime = System.currentTimeMillis();
+            FeatureCache cache = useCache ? FeatureCache.load() : null;
+            FeatureLoader.parseFeatureFilesAndPushToDesignerRoot(FileUtil.getFeatureFiles(files), new FeatureBuildState(), cache);
+            if (cache != null) {
+                cache.save();
+                System.out.println("Imported features in " + (System.currentTimeMillis() - startTime) + " ms (" + (cache.getHitCount() == 0 ? "cold" : "warm") + " cache: " + cache.getHitCount() + " cached, " + cache.getMissCount() + " parsed)");
             }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        synchronized (Engine.DATA_LOCK) {
             featuresBaseDir = (files.length == 1 && files[0].isDirectory()) ? files[0].getAbsolutePath() : null;
             featuresRoot.isLoaded = true;
             UndoManager.reset();
             Engine.resetFps();
         }
+        if (FeatureFileWatcher.isEnabled()) {
+            FeatureFileWatcher.start(featuresBaseDir);
+        }
     }
 
     public static void exportFeatures(File directory) {
@@ -494,6 +568,7 @@ public class DesignerEngine implements CucumberlessEngine {
             }
         }
         featuresRoot.save();
+        FeatureFileWatcher.rescan();
         FlashingMessageManager.addMessage(new FlashingMessage("Features saved!", FlashingMessage.STANDARD_TIMEOUT));
         Engine.resetFps();
     }
@@ -534,6 +609,7 @@ public class DesignerEngine implements CucumberlessEngine {
     }
 
     public static void resetFeatures() {
+        FeatureFileWatcher.stop();
         featuresBaseDir = null;
         featuresToDeleteWhenSaving = null;
         cucumberRoot.removeChild(featuresRoot);
@@ -563,6 +639,37 @@ public class DesignerEngine implements CucumberlessEngine {
         }
     }
 
+    public static boolean reloadFeature(FeatureElement feature, String loadedContentHash) {
+        for (int i = 0; i < featuresRoot.children.size(); i++) {
+            Element oldFeature = featuresRoot.children.get(i);
+            if (feature.getFilename().equals(((BaseBarElement) oldFeature).getFilename())) {
+                if (loadedContentHash == null || !loadedContentHash.equals(FeatureFileWatcher.getContentHash(oldFeature))) {
+                    FlashingMessageManager.addMessage(new FlashingMessage("Not reloading " + FileUtil.removePathFromFilename(feature.getFilename()) + ": it has unsaved changes", FlashingMessage.STANDARD_TIMEOUT));
+                    return false;
+                }
+                ElementHelper.copyViewState(oldFeature, feature);
+                featuresRoot.children.set(i, feature);
+                ElementIndex.invalidate();
+                feature.groupParent = featuresRoot;
+                UndoManager.takeSnapshot(featuresRoot);
+                return true;
+            }
+        }
+        featuresRoot.addChild(feature);
+        UndoManager.takeSnapshot(featuresRoot);
+        return true;
+    }
+
+    public static void removeFeature(String filename) {
+        for (Element feature : featuresRoot.children) {
+            if (filename.equals(((BaseBarElement) feature).getFilename())) {
+                featuresRoot.removeChild(feature);
+                UndoManager.takeSnapshot(featuresRoot);
+                return;
+            }
+        }
+    }
+
     public static void deleteFeatureFromFilesystemWhenSaving(BaseBarElement feature) {
         if (feature.type != BaseBarElement.TYPE_FEATURE) {
             return;
@@ -645,7 +752,8 @@ public class DesignerEngine implements CucumberlessEngine {
             return;
         }
         synchronized (Engine.DATA_LOCK) {
-            DesignerEngine.featuresRoot.children = new LinkedList<Element>();
+            DesignerEngine.featuresRoot.children = new ArrayList<Element>();
+            ElementIndex.invalidate();
             for (FeatureElement feature : undoElement.features) {
                 featuresRoot.children.add(feature);
                 feature.groupParent = featuresRoot;
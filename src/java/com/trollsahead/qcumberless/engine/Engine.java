@@ -65,6 +65,8 @@ public class Engine implements Runnable, ComponentListener, KeyListener {
     public static BufferedImage animationBackground = null;
     public static Graphics2D animationGraphics = null;
 
+    private static BufferedImage backgroundPicture = null;
+
     public static CumberlessCanvas canvas;
 
     public static CumberlessMouseListener mouseListener;
@@ -87,11 +89,13 @@ public class Engine implements Runnable, ComponentListener, KeyListener {
 
     private static boolean isRunning;
 
-    public static BufferedImage backbuffer = null;
+    public static BackBuffer backbuffer = null;
     private static Graphics2D backbufferGraphics = null;
+    private static boolean backbufferFellBack = false;
 
     public static List<Plugin> plugins = new LinkedList<Plugin>();
     public static Set<Device> devices = new HashSet<Device>();
+    private static Device[] deviceArray = new Device[0];
 
     private static final long POLL_FOR_DEVICES_PERIOD = 1000L * 5;
 
@@ -182,7 +186,7 @@ public class Engine implements Runnable, ComponentListener, KeyListener {
             }
             animationState = AnimationState.ACTIVATING;
             animationProgress = 0.0f;
-            animationGraphics.drawImage(Engine.backbuffer, 0, 0, null);
+            animationGraphics.drawImage(Engine.backbuffer.getImage(), 0, 0, null);
             if (pushToHistory && currentEngine != null) {
                 enginesHistory.add(currentEngine);
             }
@@ -198,6 +202,7 @@ public class Engine implements Runnable, ComponentListener, KeyListener {
     }
 
     public void run() {
+        FrameScheduler.initialize();
         isRunning = true;
         while (isRunning) {
             if (currentEngine != null) {
@@ -206,36 +211,65 @@ public class Engine implements Runnable, ComponentListener, KeyListener {
             Util.sleep(100);
         }
         while (isRunning) {
+            FrameScheduler.beginFrame();
+            boolean isBusy;
+            FrameProfiler.FRAME.begin();
+            long lockRequestTime = System.nanoTime();
             synchronized (DATA_LOCK) {
+                long lockWaitTime = System.nanoTime() - lockRequestTime;
+                LockStatistics.RENDER.record(lockWaitTime);
+                FrameProfiler.LOCK_WAIT.add(lockWaitTime);
+                FrameProfiler.UPDATE.begin();
                 update();
+                FrameProfiler.UPDATE.end();
                 synchronized (RENDER_LOCK) {
                     render();
                 }
+                FrameProfiler.POST_RENDER.begin();
                 postRender();
+                FrameProfiler.POST_RENDER.end();
+                isBusy = isSceneBusy() || backbuffer.isContentLost();
             }
             canvas.repaint();
+            FrameProfiler.FRAME.end();
+            FrameProfiler.endFrame();
+            FrameScheduler.endFrame(isBusy);
             synchFramerate();
         }
     }
 
     private void update() {
-        int lastFpsCount = fpsLastCount > 0 ? fpsLastCount : FRAME_RATE;
-        int count = Math.max(1, FRAME_RATE / lastFpsCount);
-        for (int i = 0; i < count; i++) {
-            updateAnimation();
-            Button.isOneTouched = false;
-            pollForDevices();
-            RenderOptimizer.update();
-            if (DropDown.isVisible) {
-                DropDown.update();
-            }
-            currentEngine.update();
+        Animation.advanceClock();
+        updateAnimation();
+        Button.isOneTouched = false;
+        pollForDevices();
+        drainDeviceLogs();
+        RenderOptimizer.update();
+        if (DropDown.isVisible) {
+            DropDown.update();
+        }
+        currentEngine.update();
+    }
+
+    private static void drainDeviceLogs() {
+        for (Device device : deviceArray) {
+            device.getConsoleOutput().drainLog();
         }
     }
 
+    private static boolean isSceneBusy() {
+        return Animation.isAnimating() ||
+               animationState != AnimationState.NONE ||
+               Player.isStarted() ||
+               Player.isShowingMessage() ||
+               FlashingMessageManager.hasMessages() ||
+               EasterEgg.enabled ||
+               CumberlessMouseListener.isButtonPressed;
+    }
+
     private void updateAnimation() {
         if (animationProgress < 1.0f) {
-            animationProgress = Math.min(1.0f, animationProgress + GuiUtil.DISAPPEAR_SPEED);
+            animationProgress = Math.min(1.0f, animationProgress + GuiUtil.DISAPPEAR_SPEED * Animation.getFrameSteps());
             if (animationProgress >= 1.0f) {
                 animationState = AnimationState.NONE;
             }
@@ -243,9 +277,13 @@ public class Engine implements Runnable, ComponentListener, KeyListener {
     }
 
     private void render() {
+        validateBackbuffer();
         renderCounter++;
         setLevelOfDetails(backbufferGraphics);
+        FrameProfiler.Phase phase = FrameProfiler.getEnginePhase(currentEngine);
+        phase.begin();
         currentEngine.render(backbufferGraphics);
+        phase.end();
     }
 
     private void postRender() {
@@ -271,44 +309,62 @@ public class Engine implements Runnable, ComponentListener, KeyListener {
         long time = System.currentTimeMillis();
         if (time > fpsSecondTimer + 1000L) {
             fpsLastCount = fpsUpdateCount;
-            String configDetails = ConfigurationManager.get("renderDetails");
-            if (Util.isEmpty(configDetails) || "auto".equalsIgnoreCase(configDetails)) {
-                if (fpsUpdateCount >= 45) {
-                    fpsDetails = DETAILS_HIGH;
-                }
-                if (fpsUpdateCount >= 30 && fpsUpdateCount <= 35) {
-                    fpsDetails = DETAILS_MEDIUM;
-                }
-                if (fpsUpdateCount <= 20) {
-                    fpsDetails = DETAILS_LOW;
-                }
-            } else {
-                if ("low".equalsIgnoreCase(configDetails)) {
-                    fpsDetails = DETAILS_LOW;
-                } else if ("medium".equalsIgnoreCase(configDetails)) {
-                    fpsDetails = DETAILS_MEDIUM;
-                } else {
-                    fpsDetails = DETAILS_HIGH;
-                }
-            }
+            updateLevelOfDetails();
             fpsUpdateCount = 0;
             fpsSecondTimer = time;
         }
         fpsUpdateCount++;
-        Util.sleep(Math.max(5, (1000L / FRAME_RATE) - (time - fpsFrameTimer)));
+        FrameScheduler.waitForNextFrame(time - fpsFrameTimer);
         fpsFrameTimer = System.currentTimeMillis();
     }
 
+    private void updateLevelOfDetails() {
+        String configDetails = ConfigurationManager.get("renderDetails");
+        if (Util.isEmpty(configDetails) || "auto".equalsIgnoreCase(configDetails)) {
+            if (FrameScheduler.hasIdled()) {
+                return;
+            }
+            if (fpsUpdateCount >= 45) {
+                fpsDetails = DETAILS_HIGH;
+            }
+            if (fpsUpdateCount >= 30 && fpsUpdateCount <= 35) {
+                fpsDetails = DETAILS_MEDIUM;
+            }
+            if (fpsUpdateCount <= 20) {
+                fpsDetails = DETAILS_LOW;
+            }
+        } else {
+            if ("low".equalsIgnoreCase(configDetails)) {
+                fpsDetails = DETAILS_LOW;
+            } else if ("medium".equalsIgnoreCase(configDetails)) {
+                fpsDetails = DETAILS_MEDIUM;
+            } else {
+                fpsDetails = DETAILS_HIGH;
+            }
+        }
+    }
+
     private static void createBackbuffer() {
-        if (backbufferGraphics != null) {
-            backbufferGraphics.dispose();
+        createBackbuffer(BackBuffer.isAccelerationEnabled() && !backbufferFellBack);
+    }
+
+    private static void createBackbuffer(boolean accelerated) {
+        if (backbuffer != null) {
+            backbuffer.dispose();
         }
-        backbuffer = RenderOptimizer.graphicsConfiguration.createCompatibleImage(windowWidth, windowHeight);
-        backbufferGraphics = backbuffer.createGraphics();
-        backbufferGraphics.setFont(FONT_DEFAULT);
+        backbuffer = BackBuffer.create(windowWidth, windowHeight, accelerated);
+        backbufferGraphics = backbuffer.getGraphics();
         fontMetrics = backbufferGraphics.getFontMetrics();
-        backbufferGraphics.setColor(Color.BLACK);
-        backbufferGraphics.fillRect(0, 0, windowWidth + 1, windowHeight + 1);
+    }
+
+    private static void validateBackbuffer() {
+        if (backbuffer.isFailing()) {
+            System.out.println("Accelerated back buffer keeps losing its content - falling back to a buffered image");
+            backbufferFellBack = true;
+            createBackbuffer(false);
+        }
+        backbuffer.validate();
+        backbufferGraphics = backbuffer.getGraphics();
     }
 
     private static void createAnimationBackground() {
@@ -327,13 +383,21 @@ public class Engine implements Runnable, ComponentListener, KeyListener {
         }
     }
 
+    private static void resizeBackgroundPicture() {
+        if (backgroundPicture == null || windowWidth > backgroundPicture.getWidth() || windowHeight > backgroundPicture.getHeight()) {
+            createBackgroundPicture();
+        }
+    }
+
     public void componentResized(ComponentEvent componentEvent) {
         synchronized (DATA_LOCK) {
             setWindowSize(canvas.getWidth(), canvas.getHeight());
+            resizeBackgroundPicture();
             if (currentEngine != null) {
                 currentEngine.resize();
             }
         }
+        FrameScheduler.requestFrame();
     }
 
     public void componentMoved(ComponentEvent componentEvent) {
@@ -422,13 +486,22 @@ public class Engine implements Runnable, ComponentListener, KeyListener {
         if (currentEngine != null) {
             currentEngine.keyPressed(keyEvent);
         }
+        FrameScheduler.inputReceived();
     }
 
     public void keyReleased(KeyEvent keyEvent) {
     }
 
+    public static List<String> getDeviceLogStatistics() {
+        List<String> lines = new ArrayList<String>();
+        for (Device device : deviceArray) {
+            lines.add(device.name() + " log: " + device.getConsoleOutput().getStatistics());
+        }
+        return lines;
+    }
+
     public static boolean isPlayableDeviceEnabled() {
-        for (Device device : devices) {
+        for (Device device : deviceArray) {
             if (device.isEnabled() && device.getCapabilities().contains(Device.Capability.PLAY)) {
                 return true;
             }
@@ -437,7 +510,7 @@ public class Engine implements Runnable, ComponentListener, KeyListener {
     }
 
     public static boolean isStepableDeviceEnabled() {
-        for (Device device : devices) {
+        for (Device device : deviceArray) {
             if (device.isEnabled() && device.getCapabilities().contains(Device.Capability.STEP)) {
                 return true;
             }
@@ -446,7 +519,7 @@ public class Engine implements Runnable, ComponentListener, KeyListener {
     }
 
     public static boolean isInteractiveDesignerDeviceEnabled() {
-        for (Device device : devices) {
+        for (Device device : deviceArray) {
             if (device.isEnabled() && device.getCapabilities().contains(Device.Capability.INTERACTIVE_DESIGNING)) {
                 return true;
             }
@@ -470,8 +543,10 @@ public class Engine implements Runnable, ComponentListener, KeyListener {
                 }
                 synchronized (DATA_LOCK) {
                     devices = newDevices;
+                    deviceArray = newDevices.toArray(new Device[newDevices.size()]);
                     currentEngine.updateDevices(devices);
                 }
+                FrameScheduler.requestFrame();
                 isPollingForDevices = false;
                 lastTimePolledForDevices = System.currentTimeMillis();
             }
@@ -479,11 +554,27 @@ public class Engine implements Runnable, ComponentListener, KeyListener {
     }
 
     public static void drawBackgroundPicture(Graphics g) {
-        BufferedImage backgroundImage = Images.getImage(Images.IMAGE_BACKGROUND, Images.ThumbnailState.NORMAL.ordinal());
-        for (int y = 0; y <= Engine.windowHeight / backgroundImage.getHeight(); y++) {
-            for (int x = 0; x <= Engine.windowWidth / backgroundImage.getWidth(); x++) {
-                g.drawImage(backgroundImage, x * backgroundImage.getWidth(), y * backgroundImage.getHeight(), null);
-            }
+        if (backgroundPicture == null) {
+            createBackgroundPicture();
+        }
+        g.drawImage(backgroundPicture, 0, 0, null);
+    }
+
+    private static void createBackgroundPicture() {
+        int width = Math.max(1, windowWidth);
+        int height = Math.max(1, windowHeight);
+        if (backgroundPicture != null) {
+            backgroundPicture.flush();
+        }
+        if (RenderOptimizer.graphicsConfiguration != null) {
+            backgroundPicture = RenderOptimizer.graphicsConfiguration.createCompatibleImage(width, height);
+        } else {
+            backgroundPicture = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
         }
+        BufferedImage tile = Images.getImage(Images.IMAGE_BACKGROUND, Images.ThumbnailState.NORMAL.ordinal());
+        Graphics2D g = backgroundPicture.createGraphics();
+        g.setPaint(new TexturePaint(tile, new Rectangle(0, 0, tile.getWidth(), tile.getHeight())));
+        g.fillRect(0, 0, width, height);
+        g.dispose();
     }
 }
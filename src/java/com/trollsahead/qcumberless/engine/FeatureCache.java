@@ -0,0 +1,202 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.trollsahead.qcumberless.engine;
+
+import com.trollsahead.qcumberless.model.Locale;
+import com.trollsahead.qcumberless.util.ConfigurationManager;
+import com.trollsahead.qcumberless.util.FileUtil;
+import com.trollsahead.qcumberless.util.Util;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.trollsahead.qcumberless.engine.FeatureLexer.Token;
+import static com.trollsahead.qcumberless.engine.FeatureLexer.TokenType;
+
+public class FeatureCache {
+    private static final int CACHE_VERSION = 1;
+    private static final String DEFAULT_CACHE_FILENAME = "qcumberless.featurecache";
+
+    private final String cacheFilename;
+    private final Map<String, Entry> cachedEntries = new ConcurrentHashMap<String, Entry>();
+    private final Map<String, Entry> usedEntries = new ConcurrentHashMap<String, Entry>();
+
+    private final AtomicInteger hitCount = new AtomicInteger();
+    private final AtomicInteger missCount = new AtomicInteger();
+
+    public FeatureCache(String cacheFilename) {
+        this.cacheFilename = cacheFilename;
+    }
+
+    public static boolean isEnabled() {
+        return !"false".equalsIgnoreCase(ConfigurationManager.get("featureCache"));
+    }
+
+    public static FeatureCache load() {
+        String filename = ConfigurationManager.get("featureCacheFile");
+        return load(Util.isEmpty(filename) ? DEFAULT_CACHE_FILENAME : filename);
+    }
+
+    public static FeatureCache load(String cacheFilename) {
+        FeatureCache cache = new FeatureCache(cacheFilename);
+        cache.read();
+        return cache;
+    }
+
+    public List<Token> getTokens(String filename) {
+        File file = new File(filename);
+        long lastModified = file.lastModified();
+        long length = file.length();
+        Entry entry = cachedEntries.get(filename);
+        if (entry != null && entry.lastModified == lastModified && entry.length == length) {
+            hitCount.incrementAndGet();
+            usedEntries.put(filename, entry);
+            return entry.tokens;
+        }
+        StringBuilder source = FeatureLoader.readFeatureFile(filename);
+        String hash = Util.md5(source);
+        List<Token> tokens;
+        if (entry != null && entry.hash.equals(hash)) {
+            hitCount.incrementAndGet();
+            tokens = entry.tokens;
+        } else {
+            missCount.incrementAndGet();
+            tokens = FeatureLexer.tokenize(source);
+        }
+        usedEntries.put(filename, new Entry(lastModified, length, hash, tokens));
+        return tokens;
+    }
+
+    public int getHitCount() {
+        return hitCount.get();
+    }
+
+    public int getMissCount() {
+        return missCount.get();
+    }
+
+    private void read() {
+        File file = new File(cacheFilename);
+        if (!file.exists()) {
+            return;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != CACHE_VERSION || !Locale.getLocale().name().equals(readString(in))) {
+                return;
+            }
+            TokenType[] tokenTypes = TokenType.values();
+            int entryCount = in.readInt();
+            for (int i = 0; i < entryCount; i++) {
+                String filename = readString(in);
+                long lastModified = in.readLong();
+                long length = in.readLong();
+                String hash = readString(in);
+                int tokenCount = in.readInt();
+                List<Token> tokens = new ArrayList<Token>(tokenCount);
+                for (int j = 0; j < tokenCount; j++) {
+                    TokenType type = tokenTypes[in.readByte()];
+                    int indent = in.readInt();
+                    String line = readString(in);
+                    int valueStart = in.readInt();
+                    String value = valueStart < 0 ? null : line.substring(valueStart, in.readInt());
+                    tokens.add(new Token(type, line, value, indent));
+                }
+                cachedEntries.put(filename, new Entry(lastModified, length, hash, tokens));
+            }
+        } catch (Exception e) {
+            System.out.println("Could not read feature cache " + cacheFilename + ": " + e.getMessage());
+            cachedEntries.clear();
+        } finally {
+            FileUtil.close(in);
+        }
+    }
+
+    public void save() {
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cacheFilename)));
+            out.writeInt(CACHE_VERSION);
+            writeString(out, Locale.getLocale().name());
+            out.writeInt(usedEntries.size());
+            for (Map.Entry<String, Entry> mapEntry : usedEntries.entrySet()) {
+                Entry entry = mapEntry.getValue();
+                writeString(out, mapEntry.getKey());
+                out.writeLong(entry.lastModified);
+                out.writeLong(entry.length);
+                writeString(out, entry.hash);
+                out.writeInt(entry.tokens.size());
+                for (Token token : entry.tokens) {
+                    out.writeByte(token.type.ordinal());
+                    out.writeInt(token.indent);
+                    writeString(out, token.line);
+                    if (token.value == null) {
+                        out.writeInt(-1);
+                    } else {
+                        int valueStart = token.type == TokenType.TABLE_ROW ? token.indent + 1 : token.line.length() - token.value.length();
+                        out.writeInt(valueStart);
+                        out.writeInt(valueStart + token.value.length());
+                    }
+                }
+            }
+        } catch (Exception e) {
+            System.out.println("Could not save feature cache " + cacheFilename + ": " + e.getMessage());
+        } finally {
+            FileUtil.close(out);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, "UTF8");
+    }
+
+    private static void writeString(DataOutputStream out, String str) throws IOException {
+        byte[] bytes = str.getBytes("UTF8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static class Entry {
+        public final long lastModified;
+        public final long length;
+        public final String hash;
+        public final List<Token> tokens;
+
+        public Entry(long lastModified, long length, String hash, List<Token> tokens) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.hash = hash;
+            this.tokens = tokens;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.trollsahead.qcumberless.engine;
+
+import com.trollsahead.qcumberless.gui.elements.BaseBarElement;
+import com.trollsahead.qcumberless.gui.elements.Element;
+import com.trollsahead.qcumberless.gui.elements.FeatureElement;
+import com.trollsahead.qcumberless.model.FeatureBuildState;
+import com.trollsahead.qcumberless.util.ConfigurationManager;
+import com.trollsahead.qcumberless.util.FileUtil;
+import com.trollsahead.qcumberless.util.Util;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class FeatureFileWatcher {
+    private static final long DEFAULT_POLL_INTERVAL = 1000;
+
+    private static FeatureFileWatcher instance = null;
+
+    private final String baseDir;
+    private final long pollInterval;
+    private final Map<String, FileState> fileStates = new HashMap<String, FileState>();
+    private final Map<String, String> loadedContentHashes = new ConcurrentHashMap<String, String>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    private FeatureFileWatcher(String baseDir, long pollInterval) {
+        this.baseDir = baseDir;
+        this.pollInterval = pollInterval;
+        thread = new Thread(new Runnable() {
+            public void run() {
+                while (running) {
+                    Util.sleep(FeatureFileWatcher.this.pollInterval);
+                    if (running) {
+                        List<FeatureElement> changedFeatures = new ArrayList<FeatureElement>();
+                        List<String> removedFiles = new ArrayList<String>();
+                        scan(changedFeatures, removedFiles);
+                        applyChanges(changedFeatures, removedFiles);
+                    }
+                }
+            }
+        }, "FeatureFileWatcher");
+        thread.setDaemon(true);
+    }
+
+    public static boolean isEnabled() {
+        return !Util.isEmpty(ConfigurationManager.get("watchFeatures"));
+    }
+
+    public static void start(String baseDir) {
+        FeatureFileWatcher watcher;
+        synchronized (FeatureFileWatcher.class) {
+            stop();
+            if (Util.isEmpty(baseDir)) {
+                return;
+            }
+            watcher = new FeatureFileWatcher(baseDir, getPollInterval());
+            instance = watcher;
+        }
+        watcher.scan(null, null);
+        watcher.recordLoadedContent();
+        watcher.thread.start();
+    }
+
+    public static synchronized void stop() {
+        if (instance == null) {
+            return;
+        }
+        instance.running = false;
+        instance.thread.interrupt();
+        instance = null;
+    }
+
+    public static void rescan() {
+        FeatureFileWatcher watcher;
+        synchronized (FeatureFileWatcher.class) {
+            watcher = instance;
+        }
+        if (watcher != null) {
+            watcher.scan(null, null);
+            watcher.recordLoadedContent();
+        }
+    }
+
+    private static long getPollInterval() {
+        try {
+            return Long.parseLong(ConfigurationManager.get("watchFeaturesInterval"));
+        } catch (Exception e) {
+            return DEFAULT_POLL_INTERVAL;
+        }
+    }
+
+    private synchronized void scan(List<FeatureElement> changedFeatures, List<String> removedFiles) {
+        Set<String> missingFiles = new HashSet<String>(fileStates.keySet());
+        for (String filename : FileUtil.getFeatureFiles(baseDir)) {
+            missingFiles.remove(filename);
+            File file = new File(filename);
+            FileState state = fileStates.get(filename);
+            if (state != null && state.lastModified == file.lastModified() && state.length == file.length()) {
+                continue;
+            }
+            StringBuilder source;
+            try {
+                source = FeatureLoader.readFeatureFile(filename);
+            } catch (Exception e) {
+                continue;
+            }
+            FileState newState = new FileState(file.lastModified(), file.length(), Util.md5(source));
+            fileStates.put(filename, newState);
+            if (changedFeatures == null || (state != null && state.hash.equals(newState.hash))) {
+                continue;
+            }
+            try {
+                changedFeatures.add(FeatureLoader.parseFeatureFile(source, filename, new FeatureBuildState()));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        for (String filename : missingFiles) {
+            fileStates.remove(filename);
+            if (removedFiles != null) {
+                removedFiles.add(filename);
+            }
+        }
+    }
+
+    public static String getContentHash(Element feature) {
+        return Util.md5(feature.buildFeature(new FeatureBuildState()));
+    }
+
+    private void recordLoadedContent() {
+        synchronized (Engine.DATA_LOCK) {
+            if (!baseDir.equals(DesignerEngine.featuresBaseDir)) {
+                return;
+            }
+            for (Element feature : DesignerEngine.featuresRoot.children) {
+                String filename = ((BaseBarElement) feature).getFilename();
+                if (!Util.isEmpty(filename)) {
+                    loadedContentHashes.put(filename, getContentHash(feature));
+                }
+            }
+        }
+    }
+
+    private void applyChanges(List<FeatureElement> changedFeatures, List<String> removedFiles) {
+        if (changedFeatures.isEmpty() && removedFiles.isEmpty()) {
+            return;
+        }
+        synchronized (Engine.DATA_LOCK) {
+            if (!running || !baseDir.equals(DesignerEngine.featuresBaseDir)) {
+                return;
+            }
+            for (FeatureElement feature : changedFeatures) {
+                if (DesignerEngine.reloadFeature(feature, loadedContentHashes.get(feature.getFilename()))) {
+                    loadedContentHashes.put(feature.getFilename(), getContentHash(feature));
+                }
+            }
+            for (String filename : removedFiles) {
+                DesignerEngine.removeFeature(filename);
+                loadedContentHashes.remove(filename);
+            }
+        }
+        Engine.resetFps();
+    }
+
+    private static class FileState {
+        public final long lastModified;
+        public final long length;
+        public final String hash;
+
+        public FileState(long lastModified, long length, String hash) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.trollsahead.qcumberless.engine;
+
+import com.trollsahead.qcumberless.model.Locale;
+import com.trollsahead.qcumberless.util.HistoryHelper;
+
+import static com.trollsahead.qcumberless.model.Locale.Language;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+public class FeatureLexer {
+    public enum TokenType {PLAY_RESULT, FOLD_STATE, VIEW_STATE, FEATURE, BACKGROUND, SCENARIO, SCENARIO_OUTLINE, TAGS, COMMENT, EXAMPLES, TABLE_ROW, STEP}
+
+    private static final String FOLD_STATE_PREFIX = "# foldstate: ";
+    private static final String VIEW_STATE_LINE = "# lastAddedElement";
+
+    private static final Map<Language, Keywords> keywordTable = new EnumMap<Language, Keywords>(Language.class);
+
+    public static List<Token> tokenize(CharSequence source) {
+        Keywords keywords = getKeywords();
+        List<Token> tokens = new ArrayList<Token>();
+        int length = source.length();
+        int start = 0;
+        while (start < length) {
+            int end = start;
+            while (end < length && source.charAt(end) != '\n') {
+                end++;
+            }
+            Token token = classify(source.subSequence(start, end).toString(), keywords);
+            if (token != null) {
+                tokens.add(token);
+            }
+            start = end + 1;
+        }
+        return tokens;
+    }
+
+    public static Token classify(String line) {
+        return classify(line, getKeywords());
+    }
+
+    private static Token classify(String line, Keywords keywords) {
+        line = removeTrailingWhitespace(line);
+        if (isBlank(line)) {
+            return null;
+        }
+        if (line.startsWith(HistoryHelper.COMMENT_QCUMBERLESS)) {
+            return new Token(TokenType.PLAY_RESULT, line, line, 0);
+        }
+        if (line.startsWith(keywords.feature)) {
+            return new Token(TokenType.FEATURE, line, line.substring(keywords.feature.length()), 0);
+        }
+        int indent = getIndent(line);
+        char first = line.charAt(indent);
+        if (first == '#') {
+            if (line.startsWith(FOLD_STATE_PREFIX, indent)) {
+                return new Token(TokenType.FOLD_STATE, line, line.substring(indent + FOLD_STATE_PREFIX.length()), indent);
+            }
+            if (line.length() - indent == VIEW_STATE_LINE.length() && line.startsWith(VIEW_STATE_LINE, indent)) {
+                return new Token(TokenType.VIEW_STATE, line, null, indent);
+            }
+        } else if (line.length() - indent == keywords.background.length() && line.startsWith(keywords.background, indent)) {
+            return new Token(TokenType.BACKGROUND, line, null, indent);
+        } else if (line.startsWith(keywords.scenario, indent)) {
+            return new Token(TokenType.SCENARIO, line, line.substring(indent + keywords.scenario.length()), indent);
+        } else if (line.startsWith(keywords.scenarioOutline, indent)) {
+            return new Token(TokenType.SCENARIO_OUTLINE, line, line.substring(indent + keywords.scenarioOutline.length()), indent);
+        }
+        String tags = extractTags(line);
+        if (tags != null) {
+            return new Token(TokenType.TAGS, line, tags, indent);
+        }
+        if (first == '#') {
+            return new Token(TokenType.COMMENT, line, line.substring(indent), indent);
+        }
+        if (line.length() - indent == keywords.examples.length() && line.startsWith(keywords.examples, indent)) {
+            return new Token(TokenType.EXAMPLES, line, null, indent);
+        }
+        if (first == '|' && line.length() - indent >= 2 && line.charAt(line.length() - 1) == '|') {
+            return new Token(TokenType.TABLE_ROW, line, line.substring(indent + 1, line.length() - 1), indent);
+        }
+        return new Token(TokenType.STEP, line, line, indent);
+    }
+
+    public static String extractTags(String line) {
+        int tagsStart = line.indexOf('@');
+        if (tagsStart == -1 || !isTagList(line, tagsStart)) {
+            return null;
+        }
+        return line.substring(tagsStart);
+    }
+
+    private static boolean isTagList(String line, int tagsStart) {
+        boolean afterWhitespace = false;
+        for (int i = tagsStart; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (isWhitespace(ch)) {
+                afterWhitespace = true;
+            } else {
+                if (afterWhitespace && ch != '@') {
+                    return false;
+                }
+                afterWhitespace = false;
+            }
+        }
+        return true;
+    }
+
+    private static int getIndent(String line) {
+        int indent = 0;
+        while (indent < line.length() && isWhitespace(line.charAt(indent))) {
+            indent++;
+        }
+        return indent;
+    }
+
+    private static String removeTrailingWhitespace(String line) {
+        int end = line.length();
+        while (end > 0 && isWhitespace(line.charAt(end - 1))) {
+            end--;
+        }
+        return end == line.length() ? line : line.substring(0, end);
+    }
+
+    private static boolean isBlank(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(char ch) {
+        return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\u000B' || ch == '\f' || ch == '\r';
+    }
+
+    private static Keywords getKeywords() {
+        Language language = Locale.getLocale();
+        synchronized (keywordTable) {
+            Keywords keywords = keywordTable.get(language);
+            if (keywords == null) {
+                keywords = new Keywords();
+                keywordTable.put(language, keywords);
+            }
+            return keywords;
+        }
+    }
+
+    private static class Keywords {
+        private final String feature = Locale.getString("feature") + ": ";
+        private final String background = Locale.getString("background") + ":";
+        private final String scenario = Locale.getString("scenario") + ": ";
+        private final String scenarioOutline = Locale.getString("scenario outline") + ": ";
+        private final String examples = Locale.getString("Examples") + ":";
+    }
+
+    public static class Token {
+        public final TokenType type;
+        public final String line;
+        public final String value;
+        public final int indent;
+
+        public Token(TokenType type, String line, String value, int indent) {
+            this.type = type;
+            this.line = line;
+            this.value = value;
+            this.indent = indent;
+        }
+
+        public String[] getTableCells() {
+            String[] cols = value.split("\\|");
+            for (int i = 0; i < cols.length; i++) {
+                cols[i] = cols[i].trim();
+            }
+            return cols;
+        }
+    }
+}
@@ -25,32 +25,172 @@
 
 package com.trollsahead.qcumberless.engine;
 
+import com.trollsahead.qcumberless.gui.ProgressBar;
 import com.trollsahead.qcumberless.gui.elements.*;
 import com.trollsahead.qcumberless.model.*;
+import com.trollsahead.qcumberless.util.ConfigurationManager;
 import com.trollsahead.qcumberless.util.ElementHelper;
 import com.trollsahead.qcumberless.util.HistoryHelper;
 import com.trollsahead.qcumberless.util.FileUtil;
 import com.trollsahead.qcumberless.util.Util;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class FeatureLoader {
+    private static final int DEFAULT_STEP_MATCH_CACHE_SIZE = 10000;
+    private static final int STEP_MATCH_CHUNK_SIZE = 256;
+
+    private static final Object INDEX_LOCK = new Object();
+    private static volatile StepDefinitionIndex stepDefinitionIndex = null;
+    private static final StepMatchCache stepMatchCache = new StepMatchCache(getStepMatchCacheSize());
+
     public static void parseFeatureFilesAndPushToDesignerRoot(String[] files) {
         parseFeatureFilesAndPushToDesignerRoot(files, new FeatureBuildState());
     }
 
     public static void parseFeatureFilesAndPushToDesignerRoot(String[] files, FeatureBuildState buildState) {
-        DesignerEngine.resetFeatures();
-        for (String filename : files) {
-            DesignerEngine.featuresRoot.addChild(parseFeatureFile(filename, buildState));
+        parseFeatureFilesAndPushToDesignerRoot(files, buildState, null);
+    }
+
+    public static void parseFeatureFilesAndPushToDesignerRoot(String[] files, FeatureBuildState buildState, FeatureCache cache) {
+        List<Step> stepDefinitions = DesignerEngine.stepDefinitions;
+        List<FeatureElement> features = parseFeatureFiles(files, buildState, cache);
+        synchronized (Engine.DATA_LOCK) {
+            DesignerEngine.resetFeatures();
+            for (FeatureElement feature : features) {
+                if (stepDefinitions != DesignerEngine.stepDefinitions) {
+                    feature.updateSteps();
+                }
+                DesignerEngine.featuresRoot.addChild(feature);
+            }
+            ElementHelper.unfoldAllScenariosIfNotTooMany();
+        }
+    }
+
+    public static List<FeatureElement> parseFeatureFiles(String[] files, FeatureBuildState buildState) {
+        return parseFeatureFiles(files, buildState, null);
+    }
+
+    public static List<FeatureElement> parseFeatureFiles(String[] files, final FeatureBuildState buildState, final FeatureCache cache) {
+        List<FeatureElement> features = new ArrayList<FeatureElement>();
+        int threadCount = Math.min(files.length, Runtime.getRuntime().availableProcessors());
+        if (threadCount <= 1) {
+            for (String filename : files) {
+                features.add(parseFeatureFile(filename, buildState, cache));
+            }
+            return features;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<FeatureElement>> futures = new ArrayList<Future<FeatureElement>>();
+            for (final String filename : files) {
+                futures.add(executor.submit(new Callable<FeatureElement>() {
+                    public FeatureElement call() {
+                        return parseFeatureFile(filename, buildState, cache);
+                    }
+                }));
+            }
+            for (Future<FeatureElement> future : futures) {
+                features.add(future.get());
+            }
+            return features;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("Error parsing feature files", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while parsing feature files", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public static void updateSteps(Element root, ProgressBar progressBar) {
+        final List<Step> stepDefinitions;
+        final List<BaseBarElement> stepElements = new ArrayList<BaseBarElement>();
+        final List<String> lines = new ArrayList<String>();
+        synchronized (Engine.DATA_LOCK) {
+            stepDefinitions = DesignerEngine.stepDefinitions;
+            collectStepElements(root, stepElements, lines);
+        }
+        if (lines.isEmpty()) {
+            return;
+        }
+        final Step[] steps = new Step[lines.size()];
+        final StepDefinitionIndex index = getStepDefinitionIndex(stepDefinitions);
+        int threadCount = Runtime.getRuntime().availableProcessors();
+        final int chunkSize = Math.min(STEP_MATCH_CHUNK_SIZE, (lines.size() + threadCount - 1) / threadCount);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int start = 0; start < lines.size(); start += chunkSize) {
+                final int chunkStart = start;
+                futures.add(executor.submit(new Runnable() {
+                    public void run() {
+                        for (int i = chunkStart; i < Math.min(chunkStart + chunkSize, lines.size()); i++) {
+                            steps[i] = findMatchingStep(lines.get(i), index);
+                        }
+                    }
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                futures.get(i).get();
+                if (progressBar != null) {
+                    progressBar.setProcess(((float) (i + 1) / (float) futures.size()) * 100.0f);
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            return;
+        } finally {
+            executor.shutdownNow();
+        }
+        synchronized (Engine.DATA_LOCK) {
+            if (stepDefinitions != DesignerEngine.stepDefinitions) {
+                return;
+            }
+            for (int i = 0; i < steps.length; i++) {
+                BaseBarElement element = stepElements.get(i);
+                if (element.step.toString().equals(lines.get(i))) {
+                    element.step = steps[i];
+                }
+            }
+        }
+    }
+
+    private static void collectStepElements(Element element, List<BaseBarElement> stepElements, List<String> lines) {
+        if (element.type == BaseBarElement.TYPE_STEP && element instanceof BaseBarElement) {
+            BaseBarElement stepElement = (BaseBarElement) element;
+            stepElements.add(stepElement);
+            lines.add(stepElement.step.toString());
+        }
+        for (Element child : element.children) {
+            collectStepElements(child, stepElements, lines);
         }
-        ElementHelper.unfoldAllScenariosIfNotTooMany();
     }
 
     public static FeatureElement parseFeatureFile(String filename, FeatureBuildState buildState) {
+        return parseFeatureFile(readFeatureFile(filename), filename, buildState);
+    }
+
+    private static FeatureElement parseFeatureFile(String filename, FeatureBuildState buildState, FeatureCache cache) {
+        if (cache == null) {
+            return parseFeatureFile(filename, buildState);
+        }
+        return parseFeatureTokens(cache.getTokens(filename), filename, buildState);
+    }
+
+    public static StringBuilder readFeatureFile(String filename) {
         BufferedReader in = null;
         try {
             in = new BufferedReader(new InputStreamReader(new FileInputStream(filename), "UTF8"));
@@ -59,7 +199,7 @@ public class FeatureLoader {
             while ((line = in.readLine()) != null) {
                 feature.append(line).append("\n");
             }
-            return parseFeatureFile(feature, filename, buildState);
+            return feature;
         } catch (Exception e) {
             throw new RuntimeException("Error reading supported feature file " + filename, e);
         } finally {
@@ -68,6 +208,10 @@ public class FeatureLoader {
     }
 
     public static FeatureElement parseFeatureFile(StringBuilder source, String filename, FeatureBuildState buildState) {
+        return parseFeatureTokens(FeatureLexer.tokenize(source), filename, buildState);
+    }
+
+    public static FeatureElement parseFeatureTokens(List<FeatureLexer.Token> tokens, String filename, FeatureBuildState buildState) {
         FeatureElement feature = new FeatureElement(BaseBarElement.ROOT_FEATURE_EDITOR);
         feature.setFilename(filename);
         ScenarioElement scenario = null;
@@ -82,97 +226,106 @@ public class FeatureLoader {
         boolean isLastAddedElement = false;
         PlayResult playResult = null;
 
-        for (String line : source.toString().split("\n")) {
-            line = Util.removeTrailingSpaces(line);
-            if (Util.isEmptyOrContainsOnlyTabs(line)) {
-                continue;
-            }
-            if (line.startsWith(getPlayResultPattern())) {
-                if (buildState.hasState(FeatureBuildState.ADD_STATE_RUN_OUTCOME)) {
-                    playResult = HistoryHelper.getPlayResultFromComment(line);
-                }
-            } else if (line.matches(getFoldStatePattern())) {
-                if (buildState.hasState(FeatureBuildState.ADD_STATE_VIEW)) {
-                    folded = Boolean.parseBoolean(extractFoldState(line));
-                }
-            } else if (line.matches(getViewStatePattern())) {
-                if (buildState.hasState(FeatureBuildState.ADD_STATE_VIEW)) {
-                    isLastAddedElement = true;
-                }
-            } else if (line.matches(getFeaturePattern())) {
-                feature.setTitle(extractTitle(Pattern.compile(getFeaturePattern()), line));
-                feature.setTags(tags);
-                feature.setComment(comment);
-                feature.setPlayState(playResult);
-                setViewState(feature, buildState.hasState(FeatureBuildState.ADD_STATE_VIEW), folded, isLastAddedElement);
-                featureFolded = folded;
-                isLastAddedElement = false;
-                tags = null;
-                comment = null;
-                playResult = null;
-            } else if (line.matches(getBackgroundPattern())) {
-                background = new BackgroundElement(BaseBarElement.ROOT_FEATURE_EDITOR);
-                background.setTitle("Background");
-                background.setTags(tags);
-                background.setComment(comment);
-                background.setPlayState(playResult);
-                tags = null;
-                comment = null;
-                playResult = null;
-                feature.addChild(background);
-                setViewState(background, buildState.hasState(FeatureBuildState.ADD_STATE_VIEW), folded, isLastAddedElement);
-                isLastAddedElement = false;
-            } else if (line.matches(getScenarioPattern()) || line.matches(getScenarioOutlinePattern())) {
-                scenarioIndent = getLineIndent(line);
-                if (line.matches(getScenarioPattern())) {
-                    scenario = new ScenarioElement(BaseBarElement.ROOT_FEATURE_EDITOR);
-                    scenario.setTitle(extractTitle(Pattern.compile(getScenarioPattern()), line));
-                } else {
-                    scenario = new ScenarioOutlineElement(BaseBarElement.ROOT_FEATURE_EDITOR);
-                    scenario.setTitle(extractTitle(Pattern.compile(getScenarioOutlinePattern()), line));
-                }
-                scenario.setTags(tags);
-                scenario.setComment(comment);
-                scenario.setPlayState(playResult);
-                tags = null;
-                comment = null;
-                playResult = null;
-                feature.addChild(scenario);
-                setViewState(scenario, buildState.hasState(FeatureBuildState.ADD_STATE_VIEW), folded, isLastAddedElement);
-                isLastAddedElement = false;
-            } else if (line.matches(getTagPattern())) {
-                tags = extractTags(line);
-            } else if (line.matches(getCommentPattern())) {
-                comment = extractCommentAndAddToCurrent(line, comment);
-                if (getLineIndent(line) > scenarioIndent && scenarioIndent > 0) {
-                    BaseBarElement commentElement = addStep(feature, background, scenario, comment);
-                    setViewState(commentElement, buildState.hasState(FeatureBuildState.ADD_STATE_VIEW), folded, isLastAddedElement);
-                    comment = null;
+        for (FeatureLexer.Token token : tokens) {
+            String line = token.line;
+            switch (token.type) {
+                case PLAY_RESULT:
+                    if (buildState.hasState(FeatureBuildState.ADD_STATE_RUN_OUTCOME)) {
+                        playResult = HistoryHelper.getPlayResultFromComment(line);
+                    }
+                    break;
+                case FOLD_STATE:
+                    if (buildState.hasState(FeatureBuildState.ADD_STATE_VIEW)) {
+                        folded = Boolean.parseBoolean(token.value);
+                    }
+                    break;
+                case VIEW_STATE:
+                    if (buildState.hasState(FeatureBuildState.ADD_STATE_VIEW)) {
+                        isLastAddedElement = true;
+                    }
+                    break;
+                case FEATURE:
+                    feature.setTitle(token.value);
+                    feature.setTags(tags);
+                    feature.setComment(comment);
+                    feature.setPlayState(playResult);
+                    setViewState(feature, buildState.hasState(FeatureBuildState.ADD_STATE_VIEW), folded, isLastAddedElement);
+                    featureFolded = folded;
                     isLastAddedElement = false;
-                }
-            } else if (line.matches(getExamplesPattern())) {
-                step = ((ScenarioOutlineElement) scenario).getExamplesElement();
-                ((ExamplesElement) step).clearTable();
-            } else if (line.matches(getTableRowPattern())) {
-                step.addRowToTable(extractTableRow(line));
-            } else {
-                if (comment != null) {
-                    BaseBarElement commentElement = addStep(feature, background, scenario, comment);
-                    setViewState(commentElement, buildState.hasState(FeatureBuildState.ADD_STATE_VIEW), folded, isLastAddedElement);
+                    tags = null;
+                    comment = null;
+                    playResult = null;
+                    break;
+                case BACKGROUND:
+                    background = new BackgroundElement(BaseBarElement.ROOT_FEATURE_EDITOR);
+                    background.setTitle("Background");
+                    background.setTags(tags);
+                    background.setComment(comment);
+                    background.setPlayState(playResult);
+                    tags = null;
+                    comment = null;
+                    playResult = null;
+                    feature.addChild(background);
+                    setViewState(background, buildState.hasState(FeatureBuildState.ADD_STATE_VIEW), folded, isLastAddedElement);
                     isLastAddedElement = false;
-                }
-                BaseBarElement element = addStep(feature, background, scenario, line);
-                if (element instanceof StepElement || element instanceof ExamplesElement) {
-                    step = (StepElement) element;
-                }
-                if (element != null) {
-                    element.setPlayState(playResult);
-                    setViewState(element, buildState.hasState(FeatureBuildState.ADD_STATE_VIEW), folded, isLastAddedElement);
+                    break;
+                case SCENARIO:
+                case SCENARIO_OUTLINE:
+                    scenarioIndent = token.indent;
+                    if (token.type == FeatureLexer.TokenType.SCENARIO) {
+                        scenario = new ScenarioElement(BaseBarElement.ROOT_FEATURE_EDITOR);
+                    } else {
+                        scenario = new ScenarioOutlineElement(BaseBarElement.ROOT_FEATURE_EDITOR);
+                    }
+                    scenario.setTitle(token.value);
+                    scenario.setTags(tags);
+                    scenario.setComment(comment);
+                    scenario.setPlayState(playResult);
+                    tags = null;
+                    comment = null;
+                    playResult = null;
+                    feature.addChild(scenario);
+                    setViewState(scenario, buildState.hasState(FeatureBuildState.ADD_STATE_VIEW), folded, isLastAddedElement);
                     isLastAddedElement = false;
-                }
-                tags = null;
-                comment = null;
-                playResult = null;
+                    break;
+                case TAGS:
+                    tags = token.value;
+                    break;
+                case COMMENT:
+                    comment = Util.isEmpty(comment) ? token.value : comment + "\n" + token.value;
+                    if (token.indent > scenarioIndent && scenarioIndent > 0) {
+                        BaseBarElement commentElement = addStep(feature, background, scenario, comment);
+                        setViewState(commentElement, buildState.hasState(FeatureBuildState.ADD_STATE_VIEW), folded, isLastAddedElement);
+                        comment = null;
+                        isLastAddedElement = false;
+                    }
+                    break;
+                case EXAMPLES:
+                    step = ((ScenarioOutlineElement) scenario).getExamplesElement();
+                    ((ExamplesElement) step).clearTable();
+                    break;
+                case TABLE_ROW:
+                    step.addRowToTable(token.getTableCells());
+                    break;
+                default:
+                    if (comment != null) {
+                        BaseBarElement commentElement = addStep(feature, background, scenario, comment);
+                        setViewState(commentElement, buildState.hasState(FeatureBuildState.ADD_STATE_VIEW), folded, isLastAddedElement);
+                        isLastAddedElement = false;
+                    }
+                    BaseBarElement element = addStep(feature, background, scenario, line);
+                    if (element instanceof StepElement || element instanceof ExamplesElement) {
+                        step = (StepElement) element;
+                    }
+                    if (element != null) {
+                        element.setPlayState(playResult);
+                        setViewState(element, buildState.hasState(FeatureBuildState.ADD_STATE_VIEW), folded, isLastAddedElement);
+                        isLastAddedElement = false;
+                    }
+                    tags = null;
+                    comment = null;
+                    playResult = null;
+                    break;
             }
         }
         if (featureFolded) {
@@ -184,14 +337,6 @@ public class FeatureLoader {
         return feature;
     }
 
-    private static int getLineIndent(String line) {
-        Matcher matcher = Pattern.compile("^(\\s*)\\S+").matcher(line);
-        if (!matcher.find()) {
-            return 0;
-        }
-        return matcher.group(1).length();
-    }
-
     private static void setViewState(BaseBarElement element, boolean shouldUpdate, boolean folded, boolean isLastAddedElement) {
         if (!shouldUpdate) {
             return;
@@ -222,8 +367,8 @@ public class FeatureLoader {
                     if (line.startsWith(getPlayResultPattern())) {
                         updateTagHistory(line, tags, tagHistory);
                         tags = null;
-                    } else if (line.matches(getTagPattern())) {
-                        tags = extractTags(line);
+                    } else if (FeatureLexer.extractTags(line) != null) {
+                        tags = FeatureLexer.extractTags(line);
                     }
                 }
             } catch (Exception e) {
@@ -250,16 +395,6 @@ public class FeatureLoader {
         }
     }
 
-    private static String[] extractTableRow(String line) {
-        Matcher matcher = Pattern.compile(getTableRowPattern()).matcher(line);
-        matcher.find();
-        String[] cols = matcher.group(1).split("\\|");
-        for (int i = 0; i < cols.length; i++) {
-            cols[i] = cols[i].trim();
-        }
-        return cols;
-    }
-
     private static BaseBarElement addStep(BaseBarElement feature, BaseBarElement background, BaseBarElement scenario, String line) {
         if (scenario != null) {
             return addStepToScenario(scenario, line);
@@ -286,83 +421,62 @@ public class FeatureLoader {
     }
 
     public static Step findMatchingStep(String line) {
-        for (Step step : DesignerEngine.stepDefinitions) {
-            if (step.matches(line)) {
-                return new Step(step, line);
-            }
-        }
-        return new Step(line, false);
+        return findMatchingStep(line, DesignerEngine.stepDefinitions);
     }
 
-    private static String extractCommentAndAddToCurrent(String line, String currentComment) {
-        Matcher matcher = Pattern.compile(getCommentPattern()).matcher(line);
-        matcher.find();
-        if (Util.isEmpty(currentComment)) {
-            return matcher.group(1);
-        } else {
-            return currentComment + "\n" + matcher.group(1);
-        }
-    }
-
-    public static String extractTags(String line) {
-        Matcher matcher = Pattern.compile(getTagPattern()).matcher(line);
-        matcher.find();
-        return matcher.group(1);
+    public static Step findMatchingStep(String line, List<Step> stepDefinitions) {
+        return findMatchingStep(line, getStepDefinitionIndex(stepDefinitions));
     }
 
-    private static String extractTitle(Pattern pattern, String line) {
-        Matcher matcher = pattern.matcher(line);
-        matcher.find();
-        return matcher.group(1);
-    }
-
-    private static String extractFoldState(String line) {
-        Matcher matcher = Pattern.compile(getFoldStatePattern()).matcher(line);
-        matcher.find();
-        return matcher.group(1);
+    private static Step findMatchingStep(String line, StepDefinitionIndex index) {
+        String strippedLine = StepDefinitionIndex.stripLeadingSpaces(line);
+        StepDefinitionIndex.Match match = stepMatchCache.get(index, strippedLine);
+        if (match == null) {
+            match = index.findMatch(strippedLine);
+            stepMatchCache.put(index, strippedLine, match);
+        }
+        if (match != null && match != StepMatchCache.NO_MATCH) {
+            return new Step(match.stepDefinition, match.parameters);
+        }
+        return new Step(line, false);
     }
 
-    private static String getFeaturePattern() {
-        return Locale.getString("feature") + ": (.*)";
+    public static StepMatchCache getStepMatchCache() {
+        return stepMatchCache;
     }
 
-    private static String getScenarioPattern() {
-        return "^\\s*" + Locale.getString("scenario") + ": (.*)";
+    private static int getStepMatchCacheSize() {
+        try {
+            return Integer.parseInt(ConfigurationManager.get("stepMatchCacheSize"));
+        } catch (Exception e) {
+            return DEFAULT_STEP_MATCH_CACHE_SIZE;
+        }
     }
 
-    private static String getScenarioOutlinePattern() {
-        return "^\\s*" + Locale.getString("scenario outline") + ": (.*)";
+    private static StepDefinitionIndex getStepDefinitionIndex(List<Step> stepDefinitions) {
+        StepDefinitionIndex index = stepDefinitionIndex;
+        if (index != null && index.isIndexOf(stepDefinitions)) {
+            return index;
+        }
+        synchronized (INDEX_LOCK) {
+            index = stepDefinitionIndex;
+            if (index == null || !index.isIndexOf(stepDefinitions)) {
+                index = new StepDefinitionIndex(stepDefinitions);
+                stepDefinitionIndex = index;
+            }
+            return index;
+        }
     }
 
-    private static String getBackgroundPattern() {
-        return "^\\s*" + Locale.getString("background") + ":";
+    public static String extractTags(String line) {
+        return FeatureLexer.extractTags(line);
     }
 
     public static String getTagPattern() {
         return "[^@]*(((@[^@\\s]*)\\s*)+)";
     }
 
-    private static String getCommentPattern() {
-        return "^\\s*(#.*)";
-    }
-
     private static String getPlayResultPattern() {
         return HistoryHelper.COMMENT_QCUMBERLESS;
     }
-
-    private static String getExamplesPattern() {
-        return "^\\s*" + Locale.getString("Examples") + ":";
-    }
-
-    private static String getTableRowPattern() {
-        return "^\\s*\\|(.*)\\|\\s*$";
-    }
-
-    private static String getFoldStatePattern() {
-        return "^\\s*# foldstate: (.*)";
-    }
-
-    private static String getViewStatePattern() {
-        return "^\\s*# lastAddedElement$";
-    }
 }
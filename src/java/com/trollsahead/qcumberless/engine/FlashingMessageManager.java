@@ -45,6 +45,7 @@ public class FlashingMessageManager {
             messages.add(message);
             repositionMessages();
         }
+        FrameScheduler.requestFrame();
     }
 
     public static void removeMessage(FlashingMessage message) {
@@ -69,6 +70,10 @@ public class FlashingMessageManager {
         }
     }
 
+    public static boolean hasMessages() {
+        return !messages.isEmpty();
+    }
+
     public static void update() {
         boolean hasTimedOutMessages = false;
         for (FlashingMessage message : messages) {
@@ -92,6 +97,9 @@ public class FlashingMessageManager {
     }
 
     public static void render(Graphics2D g) {
+        if (messages.isEmpty()) {
+            return;
+        }
         for (FlashingMessage message : messages) {
             message.render(g);
         }
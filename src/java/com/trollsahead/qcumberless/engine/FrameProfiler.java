@@ -0,0 +1,227 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+package com.trollsahead.qcumberless.engine;
+
+import com.trollsahead.qcumberless.gui.RenderOptimizer;
+import com.trollsahead.qcumberless.util.FileUtil;
+import com.trollsahead.qcumberless.util.Histogram;
+import com.trollsahead.qcumberless.util.TextLayoutCache;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class FrameProfiler {
+    private static final long STATISTICS_PERIOD = 1000L * 1000000L;
+    private static final double NANOS_PER_MILLISECOND = 1000000.0;
+
+    private static final List<Phase> phases = new ArrayList<Phase>();
+    private static final Map<Class<?>, Phase> enginePhases = new HashMap<Class<?>, Phase>();
+
+    public static final Phase FRAME = createPhase("frame");
+    public static final Phase LOCK_WAIT = createPhase("lock wait");
+    public static final Phase UPDATE = createPhase("update");
+    public static final Phase RENDER_ELEMENTS = createPhase("  elements");
+    public static final Phase PAINT_ELEMENTS = createPhase("    paint");
+    public static final Phase RENDER_HINTS = createPhase("  hints");
+    public static final Phase RENDER_OVERLAYS = createPhase("  overlays");
+    public static final Phase POST_RENDER = createPhase("post render");
+    public static final Phase BLIT = createPhase("blit");
+
+    public static int elementsDrawn = 0;
+    public static int elementsPainted = 0;
+    public static int templateHits = 0;
+    public static int templateMisses = 0;
+
+    private static long periodStartTime = System.nanoTime();
+    private static int periodFrames = 0;
+    private static long periodElementsDrawn = 0;
+    private static long periodElementsPainted = 0;
+    private static long periodTemplateHits = 0;
+    private static long periodTemplateMisses = 0;
+
+    private static List<String> statistics = new ArrayList<String>();
+
+    public static synchronized Phase getEnginePhase(CucumberlessEngine engine) {
+        Phase phase = enginePhases.get(engine.getClass());
+        if (phase == null) {
+            phase = new Phase("render " + engine.getClass().getSimpleName());
+            phases.add(phases.indexOf(RENDER_ELEMENTS), phase);
+            enginePhases.put(engine.getClass(), phase);
+        }
+        return phase;
+    }
+
+    private static Phase createPhase(String name) {
+        Phase phase = new Phase(name);
+        phases.add(phase);
+        return phase;
+    }
+
+    public static void endFrame() {
+        synchronized (FrameProfiler.class) {
+            for (int i = 0; i < phases.size(); i++) {
+                phases.get(i).commit();
+            }
+        }
+        periodFrames++;
+        periodElementsDrawn += elementsDrawn;
+        periodElementsPainted += elementsPainted;
+        periodTemplateHits += templateHits;
+        periodTemplateMisses += templateMisses;
+        elementsDrawn = 0;
+        elementsPainted = 0;
+        templateHits = 0;
+        templateMisses = 0;
+        long time = System.nanoTime();
+        if (time - periodStartTime >= STATISTICS_PERIOD) {
+            updateStatistics();
+            periodStartTime = time;
+        }
+    }
+
+    private static synchronized void updateStatistics() {
+        List<String> lines = new ArrayList<String>();
+        lines.add(String.format("%-22s %8s %8s %8s", "Phase (ms)", "mean", "p99", "max"));
+        for (Phase phase : phases) {
+            if (phase.periodHistogram.getTotalCount() > 0) {
+                lines.add(phase.getStatistic());
+            }
+            phase.periodHistogram.reset();
+        }
+        int frames = Math.max(1, periodFrames);
+        long templateRequests = periodTemplateHits + periodTemplateMisses;
+        lines.add("Elements drawn: " + (periodElementsDrawn / frames) + "/frame, painted: " + (periodElementsPainted / frames) + "/frame, bitmap cache hits: " + getPercentage(periodElementsDrawn - periodElementsPainted, periodElementsDrawn));
+        lines.add("Image templates: " + (templateRequests / frames) + "/frame, hits: " + getPercentage(periodTemplateHits, templateRequests));
+        lines.add(RenderOptimizer.getStatistics());
+        lines.add(TextLayoutCache.getStatistics());
+        lines.add(FeatureLoader.getStepMatchCache().toString());
+        lines.addAll(Engine.getDeviceLogStatistics());
+        statistics = lines;
+        periodFrames = 0;
+        periodElementsDrawn = 0;
+        periodElementsPainted = 0;
+        periodTemplateHits = 0;
+        periodTemplateMisses = 0;
+    }
+
+    private static String getPercentage(long count, long total) {
+        return total > 0 ? (count * 100L / total) + "%" : "-";
+    }
+
+    public static List<String> getStatistics() {
+        return statistics;
+    }
+
+    public static synchronized void reset() {
+        for (Phase phase : phases) {
+            phase.histogram.reset();
+            phase.periodHistogram.reset();
+        }
+    }
+
+    public static String exportPercentileDistribution(File path) {
+        String filename = "frameprofile_" + FileUtil.prettyFilenameDateAndTime(new Date()) + ".hgrm";
+        PrintWriter out = null;
+        try {
+            out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(new File(path, filename)), "UTF8"));
+            exportPercentileDistribution(out);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            if (out != null) {
+                out.close();
+            }
+        }
+        return filename;
+    }
+
+    public static synchronized void exportPercentileDistribution(PrintWriter out) {
+        for (Phase phase : phases) {
+            if (phase.histogram.getTotalCount() == 0) {
+                continue;
+            }
+            out.println("# " + phase.name.trim() + " (milliseconds)");
+            phase.histogram.outputPercentileDistribution(out, NANOS_PER_MILLISECOND);
+            out.println();
+        }
+        out.flush();
+    }
+
+    public static class Phase {
+        private final String name;
+        private final Histogram histogram = new Histogram();
+        private final Histogram periodHistogram = new Histogram();
+
+        private long startTime = 0;
+        private long frameTime = 0;
+        private boolean touched = false;
+
+        private Phase(String name) {
+            this.name = name;
+        }
+
+        public void begin() {
+            startTime = System.nanoTime();
+        }
+
+        public void end() {
+            add(System.nanoTime() - startTime);
+        }
+
+        public void add(long time) {
+            frameTime += time;
+            touched = true;
+        }
+
+        public void record(long time) {
+            histogram.recordValue(time);
+            periodHistogram.recordValue(time);
+        }
+
+        private void commit() {
+            if (!touched) {
+                return;
+            }
+            record(frameTime);
+            frameTime = 0;
+            touched = false;
+        }
+
+        private String getStatistic() {
+            return String.format("%-22s %8.2f %8.2f %8.2f", name,
+                    periodHistogram.getMean() / NANOS_PER_MILLISECOND,
+                    periodHistogram.getValueAtPercentile(99.0) / NANOS_PER_MILLISECOND,
+                    periodHistogram.getMaxValue() / NANOS_PER_MILLISECOND);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.trollsahead.qcumberless.engine;
+
+import com.trollsahead.qcumberless.util.ConfigurationManager;
+import com.trollsahead.qcumberless.util.Util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+public class FrameScheduler {
+    private static final long DEFAULT_IDLE_FRAME_INTERVAL = 250L;
+    private static final long STATISTICS_PERIOD = 1000L;
+
+    private static final Object LOCK = new Object();
+
+    private static boolean frameRequested = true;
+    private static long pendingInputTime = 0;
+    private static long frameInputTime = 0;
+
+    private static boolean enabled = true;
+    private static long idleFrameInterval = DEFAULT_IDLE_FRAME_INTERVAL;
+
+    private static boolean lastFrameBusy = true;
+    private static boolean idledThisPeriod = false;
+    private static boolean idledLastPeriod = false;
+
+    private static long periodStartTime = 0;
+    private static long periodWaitTime = 0;
+    private static long periodCpuTime = 0;
+    private static long periodLatencyTotal = 0;
+    private static int periodLatencyCount = 0;
+
+    private static int idlePercentage = 0;
+    private static int cpuPercentage = -1;
+    private static long inputLatency = -1;
+
+    private static ThreadMXBean threadMXBean = null;
+
+    public static void initialize() {
+        enabled = !"false".equalsIgnoreCase(ConfigurationManager.get("frameScheduler"));
+        idleFrameInterval = getLongConfiguration("idleFrameInterval", DEFAULT_IDLE_FRAME_INTERVAL);
+        try {
+            threadMXBean = ManagementFactory.getThreadMXBean();
+            if (!threadMXBean.isCurrentThreadCpuTimeSupported()) {
+                threadMXBean = null;
+            } else if (!threadMXBean.isThreadCpuTimeEnabled()) {
+                threadMXBean.setThreadCpuTimeEnabled(true);
+            }
+        } catch (Exception e) {
+            threadMXBean = null;
+        }
+        periodStartTime = System.nanoTime();
+        periodCpuTime = getCurrentThreadCpuTime();
+    }
+
+    private static long getLongConfiguration(String key, long defaultValue) {
+        String value = ConfigurationManager.get(key);
+        if (Util.isEmpty(value)) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void requestFrame() {
+        synchronized (LOCK) {
+            frameRequested = true;
+            LOCK.notifyAll();
+        }
+    }
+
+    public static void inputReceived() {
+        synchronized (LOCK) {
+            if (pendingInputTime == 0) {
+                pendingInputTime = System.nanoTime();
+            }
+            frameRequested = true;
+            LOCK.notifyAll();
+        }
+    }
+
+    public static void beginFrame() {
+        synchronized (LOCK) {
+            frameInputTime = pendingInputTime;
+            pendingInputTime = 0;
+            frameRequested = false;
+        }
+    }
+
+    public static void endFrame(boolean busy) {
+        lastFrameBusy = busy || !enabled;
+        if (frameInputTime != 0) {
+            periodLatencyTotal += System.nanoTime() - frameInputTime;
+            periodLatencyCount++;
+            frameInputTime = 0;
+        }
+    }
+
+    public static void waitForNextFrame(long frameTime) {
+        long waitStartTime = System.nanoTime();
+        Util.sleep(Math.max(5, (1000L / Engine.FRAME_RATE) - frameTime));
+        if (!lastFrameBusy) {
+            waitForRequest();
+        }
+        periodWaitTime += System.nanoTime() - waitStartTime;
+        updateStatistics();
+    }
+
+    private static void waitForRequest() {
+        long deadline = System.currentTimeMillis() + idleFrameInterval;
+        synchronized (LOCK) {
+            while (!frameRequested) {
+                long timeLeft = deadline - System.currentTimeMillis();
+                if (timeLeft <= 0) {
+                    break;
+                }
+                idledThisPeriod = true;
+                try {
+                    LOCK.wait(timeLeft);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void updateStatistics() {
+        long time = System.nanoTime();
+        long periodTime = time - periodStartTime;
+        if (periodTime < STATISTICS_PERIOD * 1000000L) {
+            return;
+        }
+        idlePercentage = (int) (periodWaitTime * 100L / periodTime);
+        long cpuTime = getCurrentThreadCpuTime();
+        cpuPercentage = cpuTime >= 0 && periodCpuTime >= 0 ? (int) ((cpuTime - periodCpuTime) * 100L / periodTime) : -1;
+        if (periodLatencyCount > 0) {
+            inputLatency = periodLatencyTotal / periodLatencyCount / 1000000L;
+        }
+        idledLastPeriod = idledThisPeriod;
+        idledThisPeriod = false;
+        periodStartTime = time;
+        periodWaitTime = 0;
+        periodCpuTime = cpuTime;
+        periodLatencyTotal = 0;
+        periodLatencyCount = 0;
+    }
+
+    private static long getCurrentThreadCpuTime() {
+        if (threadMXBean == null) {
+            return -1;
+        }
+        try {
+            return threadMXBean.getCurrentThreadCpuTime();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    public static boolean hasIdled() {
+        return idledThisPeriod || idledLastPeriod;
+    }
+
+    public static int getIdlePercentage() {
+        return idlePercentage;
+    }
+
+    public static int getCpuPercentage() {
+        return cpuPercentage;
+    }
+
+    public static long getInputLatency() {
+        return inputLatency;
+    }
+
+    public static String getStatistics() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Idle: ").append(idlePercentage).append("%");
+        if (cpuPercentage >= 0) {
+            sb.append("   CPU: ").append(cpuPercentage).append("%");
+        }
+        sb.append("   Input latency: ").append(inputLatency >= 0 ? inputLatency + " ms" : "-");
+        return sb.toString();
+    }
+}
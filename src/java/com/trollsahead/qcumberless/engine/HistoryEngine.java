@@ -30,7 +30,9 @@ import com.trollsahead.qcumberless.gui.*;
 import com.trollsahead.qcumberless.gui.Button;
 import com.trollsahead.qcumberless.gui.elements.Element;
 import com.trollsahead.qcumberless.gui.elements.RootElement;
+import com.trollsahead.qcumberless.model.Constants;
 import com.trollsahead.qcumberless.model.FeatureBuildState;
+import com.trollsahead.qcumberless.model.LogSearchIndex;
 import com.trollsahead.qcumberless.plugins.HistoryPlugin;
 import com.trollsahead.qcumberless.util.ElementHelper;
 import com.trollsahead.qcumberless.util.FileUtil;
@@ -46,9 +48,12 @@ import static com.trollsahead.qcumberless.gui.elements.Element.ROOT_STEP_DEFINIT
 
 import java.awt.*;
 import java.awt.event.KeyEvent;
+import java.io.File;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 public class HistoryEngine implements CucumberlessEngine {
     private static final Color COLOR_HISTORY_DATE_NORMAL = new Color(1.0f, 1.0f, 1.0f, 1.0f);
@@ -56,11 +61,16 @@ public class HistoryEngine implements CucumberlessEngine {
     private static final Color COLOR_HISTORY_DATE_HIGHLIGHT = new Color(1.0f, 1.0f, 0.0f, 1.0f);
     private static final Color COLOR_HISTORY_DATE_ERROR = new Color(1.0f, 0.0f, 0.0f, 1.0f);
     private static final Color COLOR_HISTORY_DATE_SUCCESS = new Color(0.0f, 1.0f, 0.0f, 1.0f);
+    private static final Color COLOR_LOG_SEARCH_BACKGROUND = new Color(0.2f, 0.2f, 0.2f, 0.8f);
+    private static final Color COLOR_LOG_SEARCH_TEXT = new Color(1.0f, 1.0f, 1.0f, 1.0f);
+    private static final Color COLOR_LOG_SEARCH_NO_MATCH = new Color(1.0f, 0.5f, 0.5f, 1.0f);
 
     private static final int DATES_PADDING_HORIZONTAL = 40;
     private static final int DATES_PADDING_VERTICAL = 10;
     private static final int BUTTON_PADDING = 40;
     private static final int PLUGIN_BUTTON_PADDING = 16;
+    private static final int LOG_SEARCH_PADDING = 6;
+    private static final int MAX_LOG_SEARCH_MATCHES = 1000;
 
     private static final String NO_HISTORY = "NO HISTORY";
     private static final String HISTORY_VIEW = "HISTORY VIEW";
@@ -87,6 +97,16 @@ public class HistoryEngine implements CucumberlessEngine {
 
     private static List<Button> buttons;
 
+    private static String logSearchString = "";
+    private static List<LogMatch> logSearchMatches = new ArrayList<LogMatch>();
+    private static int logSearchMatchIndex = 0;
+    private static String logSearchMatchLine = null;
+    private static boolean logSearchRunning = false;
+    private static int logSearchGeneration = 0;
+    private static Future<?> logSearchTask = null;
+
+    private static final ExecutorService logSearchExecutor = Util.newDaemonExecutor("History log search");
+
     public static List<HistoryPlugin> plugins = new LinkedList<HistoryPlugin>();
 
     public void initialize() {
@@ -141,6 +161,8 @@ public class HistoryEngine implements CucumberlessEngine {
         historyEntries = null;
         historyProperties = null;
         currentHistoryEntryIndex = 0;
+        logSearchString = "";
+        cancelLogSearch();
         buttons = new LinkedList<Button>();
         for (final HistoryPlugin plugin : plugins) {
             Button button = new Button(
@@ -191,6 +213,7 @@ public class HistoryEngine implements CucumberlessEngine {
             currentHistoryDate = formatDate(Long.parseLong((String) historyProperties.get("date")));
             DesignerEngine.setColorScheme(ColorScheme.PLAY);
             animationProgress = animationState != AnimationState.NONE ? 0.0f : 1.0f;
+            searchLogs();
         }
     }
 
@@ -258,7 +281,7 @@ public class HistoryEngine implements CucumberlessEngine {
 
     private void updateAnimation() {
         if (animationProgress < 1.0f) {
-            animationProgress = Math.min(1.0f, animationProgress + GuiUtil.DISAPPEAR_SPEED);
+            animationProgress = Math.min(1.0f, animationProgress + GuiUtil.DISAPPEAR_SPEED * Animation.getFrameSteps());
         }
     }
 
@@ -276,9 +299,33 @@ public class HistoryEngine implements CucumberlessEngine {
             renderDates(g);
             renderButtonbar(g);
             renderPlugins(g);
+            renderLogSearch(g);
         }
     }
 
+    private void renderLogSearch(Graphics2D g) {
+        if (Util.isEmpty(historyEntries) || Util.isEmpty(logSearchString)) {
+            return;
+        }
+        String text = "Log search: " + logSearchString;
+        if (!LogSearchIndex.isSearchable(logSearchString)) {
+            text += " (type at least " + LogSearchIndex.MIN_QUERY_LENGTH + " characters)";
+        } else if (logSearchRunning) {
+            text += " (searching...)";
+        } else if (logSearchMatches.isEmpty()) {
+            text += " (no matches)";
+        } else {
+            String count = logSearchMatches.size() + (logSearchMatches.size() >= MAX_LOG_SEARCH_MATCHES ? "+" : "");
+            text += " (" + (logSearchMatchIndex + 1) + "/" + count + "): " + logSearchMatchLine;
+        }
+        int height = Engine.fontMetrics.getHeight() + LOG_SEARCH_PADDING;
+        int y = Engine.windowHeight - ButtonBar.BUTTONBAR_HEIGHT - height;
+        g.setColor(COLOR_LOG_SEARCH_BACKGROUND);
+        g.fillRect(0, y, Engine.windowWidth, height);
+        g.setColor(LogSearchIndex.isSearchable(logSearchString) && !logSearchRunning && logSearchMatches.isEmpty() ? COLOR_LOG_SEARCH_NO_MATCH : COLOR_LOG_SEARCH_TEXT);
+        g.drawString(text, LOG_SEARCH_PADDING, y + height - Engine.fontMetrics.getDescent() - LOG_SEARCH_PADDING / 2);
+    }
+
     private void renderPlugins(Graphics2D g) {
         if (Util.isEmpty(historyEntries)) {
             return;
@@ -395,6 +442,9 @@ public class HistoryEngine implements CucumberlessEngine {
     }
 
     public void keyPressed(KeyEvent keyEvent) {
+        if (logSearchKeyPressed(keyEvent)) {
+            return;
+        }
         if (keyEvent.getKeyCode() == KeyEvent.VK_LEFT || keyEvent.getKeyCode() == KeyEvent.VK_UP) {
             prevDate();
         }
@@ -406,6 +456,95 @@ public class HistoryEngine implements CucumberlessEngine {
         }
     }
 
+    private boolean logSearchKeyPressed(KeyEvent e) {
+        synchronized (Engine.DATA_LOCK) {
+            return updateLogSearch(e);
+        }
+    }
+
+    private boolean updateLogSearch(KeyEvent e) {
+        if (Util.isEmpty(historyEntries)) {
+            return false;
+        }
+        if (e.getKeyCode() == KeyEvent.VK_ESCAPE || e.getKeyCode() == KeyEvent.VK_ENTER || e.getKeyCode() == KeyEvent.VK_BACK_SPACE) {
+            if (Util.isEmpty(logSearchString)) {
+                return false;
+            }
+            if (e.getKeyCode() == KeyEvent.VK_ESCAPE) {
+                logSearchString = "";
+                searchLogs();
+            } else if (e.getKeyCode() == KeyEvent.VK_ENTER) {
+                if (!logSearchMatches.isEmpty()) {
+                    int count = logSearchMatches.size();
+                    logSearchMatchIndex = (logSearchMatchIndex + (e.isShiftDown() ? count - 1 : 1)) % count;
+                    logSearchMatchLine = logSearchMatches.get(logSearchMatchIndex).readLine();
+                }
+            } else {
+                logSearchString = logSearchString.substring(0, logSearchString.length() - 1);
+                searchLogs();
+            }
+            return true;
+        }
+        char ch = e.getKeyChar();
+        if (ch == KeyEvent.CHAR_UNDEFINED || Character.isISOControl(ch)) {
+            return false;
+        }
+        if (Util.isEmpty(logSearchString) && Constants.reservedKeys.contains(ch)) {
+            return false;
+        }
+        logSearchString += ch;
+        searchLogs();
+        return true;
+    }
+
+    private void searchLogs() {
+        cancelLogSearch();
+        if (!LogSearchIndex.isSearchable(logSearchString) || Util.isEmpty(historyEntries)) {
+            return;
+        }
+        final String query = logSearchString;
+        final String directory = historyEntries.get(currentHistoryEntryIndex).directory;
+        final int generation = logSearchGeneration;
+        logSearchRunning = true;
+        logSearchTask = logSearchExecutor.submit(new Runnable() {
+            public void run() {
+                List<LogMatch> matches = new ArrayList<LogMatch>();
+                for (String filename : FileUtil.getLogFiles(directory)) {
+                    if (matches.size() >= MAX_LOG_SEARCH_MATCHES || Thread.currentThread().isInterrupted()) {
+                        break;
+                    }
+                    File file = new File(filename);
+                    for (Long offset : LogSearchIndex.searchLogFile(file, query, MAX_LOG_SEARCH_MATCHES - matches.size())) {
+                        matches.add(new LogMatch(file, offset));
+                    }
+                }
+                String firstLine = !matches.isEmpty() ? matches.get(0).readLine() : null;
+                synchronized (Engine.DATA_LOCK) {
+                    if (generation != logSearchGeneration) {
+                        return;
+                    }
+                    logSearchMatches = matches;
+                    logSearchMatchLine = firstLine;
+                    logSearchRunning = false;
+                    logSearchTask = null;
+                }
+                FrameScheduler.requestFrame();
+            }
+        });
+    }
+
+    private static void cancelLogSearch() {
+        logSearchGeneration++;
+        if (logSearchTask != null) {
+            logSearchTask.cancel(true);
+            logSearchTask = null;
+        }
+        logSearchMatches = new ArrayList<LogMatch>();
+        logSearchMatchIndex = 0;
+        logSearchMatchLine = null;
+        logSearchRunning = false;
+    }
+
     private void gotoDate(HistoryEntry entry) {
         if (animationProgress < 1.0f) {
             return;
@@ -474,6 +613,20 @@ public class HistoryEngine implements CucumberlessEngine {
         }
     }
 
+    private static class LogMatch {
+        public final File file;
+        public final long offset;
+
+        public LogMatch(File file, long offset) {
+            this.file = file;
+            this.offset = offset;
+        }
+
+        public String readLine() {
+            return LogSearchIndex.readLine(file, offset);
+        }
+    }
+
     private class HistoryEntry {
         public String directory;
         public Date date;
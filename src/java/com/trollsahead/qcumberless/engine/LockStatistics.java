@@ -0,0 +1,116 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+package com.trollsahead.qcumberless.engine;
+
+public class LockStatistics {
+    private static final long STATISTICS_PERIOD = 1000L * 1000000L;
+    private static final long CONTENDED_THRESHOLD = 50L * 1000L;
+
+    public static final LockStatistics RENDER = new LockStatistics("Render wait");
+    public static final LockStatistics LOG = new LockStatistics("Log wait");
+
+    private final String name;
+
+    private long periodStartTime = System.nanoTime();
+    private long periodAcquisitions = 0;
+    private long periodContended = 0;
+    private long periodWaitTime = 0;
+    private long periodMaxWaitTime = 0;
+
+    private long acquisitions = 0;
+    private long contended = 0;
+    private long waitTime = 0;
+    private long maxWaitTime = 0;
+    private long period = STATISTICS_PERIOD;
+
+    private long totalAcquisitions = 0;
+    private long totalWaitTime = 0;
+
+    private LockStatistics(String name) {
+        this.name = name;
+    }
+
+    public synchronized void record(long waitTime) {
+        totalAcquisitions++;
+        totalWaitTime += waitTime;
+        periodAcquisitions++;
+        periodWaitTime += waitTime;
+        if (waitTime >= CONTENDED_THRESHOLD) {
+            periodContended++;
+        }
+        if (waitTime > periodMaxWaitTime) {
+            periodMaxWaitTime = waitTime;
+        }
+        updatePeriod(System.nanoTime());
+    }
+
+    private void updatePeriod(long time) {
+        long periodTime = time - periodStartTime;
+        if (periodTime < STATISTICS_PERIOD) {
+            return;
+        }
+        acquisitions = periodAcquisitions;
+        contended = periodContended;
+        waitTime = periodWaitTime;
+        maxWaitTime = periodMaxWaitTime;
+        period = periodTime;
+        periodStartTime = time;
+        periodAcquisitions = 0;
+        periodContended = 0;
+        periodWaitTime = 0;
+        periodMaxWaitTime = 0;
+    }
+
+    public synchronized int getWaitPerMille() {
+        updatePeriod(System.nanoTime());
+        return (int) (waitTime * 1000L / Math.max(1, period));
+    }
+
+    public synchronized long getTotalAcquisitions() {
+        return totalAcquisitions;
+    }
+
+    public synchronized long getTotalWaitTime() {
+        return totalWaitTime;
+    }
+
+    public synchronized void reset() {
+        totalAcquisitions = 0;
+        totalWaitTime = 0;
+    }
+
+    public synchronized String getStatistic() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(name).append(": ");
+        sb.append(getWaitPerMille()).append(" ms/s");
+        sb.append(" (").append(contended).append("/").append(acquisitions).append(" contended");
+        sb.append(", max ").append(maxWaitTime / 1000000L).append(" ms)");
+        return sb.toString();
+    }
+
+    public static String getStatistics() {
+        return RENDER.getStatistic() + "   " + LOG.getStatistic();
+    }
+}
@@ -57,6 +57,8 @@ public class Player implements DeviceCallback {
 
     private static final Color COLOR_SUCCESS = new Color(0x88FF88);
     private static final Color COLOR_FAILURE = new Color(0x990000);
+    private static final Color COLOR_MESSAGE_BACKGROUND = new Color(0.0f, 0.0f, 0.0f, 0.3f);
+    private static final Color COLOR_MESSAGE_BORDER = new Color(0.0f, 0.0f, 0.0f, 0.5f);
 
     public static final int STEP_MODE_NONE = 0;
     public static final int STEP_MODE_RUNNING_SCENARIO = 1;
@@ -94,6 +96,7 @@ public class Player implements DeviceCallback {
     private Color runningColor = Color.GRAY;
 
     public static Set<Player> players = new HashSet<Player>();
+    private static volatile Player[] playerArray = new Player[0];
 
     static {
         PLAYING_COLORS.add(Color.WHITE);
@@ -122,7 +125,10 @@ public class Player implements DeviceCallback {
 
     public Player() {
         runningColor = getUnusedPlayingColor();
-        players.add(this);
+        synchronized (players) {
+            players.add(this);
+            playerArray = players.toArray(new Player[players.size()]);
+        }
         reset();
     }
 
@@ -132,11 +138,14 @@ public class Player implements DeviceCallback {
     }
     
     private void cleanup() {
-        players.remove(this);
+        synchronized (players) {
+            players.remove(this);
+            playerArray = players.toArray(new Player[players.size()]);
+        }
     }
 
     public static boolean isStarted() {
-        for (Player player : players) {
+        for (Player player : playerArray) {
             if (player.started) {
                 return true;
             }
@@ -145,7 +154,7 @@ public class Player implements DeviceCallback {
     }
 
     public static boolean isRunning() {
-        for (Player player : players) {
+        for (Player player : playerArray) {
             if (player.running) {
                 return true;
             }
@@ -154,7 +163,7 @@ public class Player implements DeviceCallback {
     }
 
     public static boolean isPaused() {
-        for (Player player : players) {
+        for (Player player : playerArray) {
             if (player.paused) {
                 return true;
             }
@@ -163,7 +172,7 @@ public class Player implements DeviceCallback {
     }
 
     public static boolean isStopped() {
-        for (Player player : players) {
+        for (Player player : playerArray) {
             if (player.stopped) {
                 return true;
             }
@@ -228,7 +237,7 @@ public class Player implements DeviceCallback {
     }
 
     public static void pause() {
-        for (final Player player : players) {
+        for (final Player player : playerArray) {
             new Thread(new Runnable() {
                 public void run() {
                     player.device.pause();
@@ -238,7 +247,7 @@ public class Player implements DeviceCallback {
     }
 
     public static void resume() {
-        for (final Player player : players) {
+        for (final Player player : playerArray) {
             new Thread(new Runnable() {
                 public void run() {
                     player.device.resume();
@@ -248,7 +257,7 @@ public class Player implements DeviceCallback {
     }
 
     public static void step() {
-        for (final Player player : players) {
+        for (final Player player : playerArray) {
             new Thread(new Runnable() {
                 public void run() {
                     player.device.step();
@@ -259,7 +268,7 @@ public class Player implements DeviceCallback {
 
     public static void stop() {
         notifiedStopped = true;
-        for (final Player player : players) {
+        for (final Player player : playerArray) {
             new Thread(new Runnable() {
                 public void run() {
                     player.device.stop();
@@ -269,7 +278,7 @@ public class Player implements DeviceCallback {
     }
 
     public static void shutdownStepMode() {
-        for (final Player player : players) {
+        for (final Player player : playerArray) {
             new Thread(new Runnable() {
                 public void run() {
                     player.device.resumeFromStepMode();
@@ -288,7 +297,7 @@ public class Player implements DeviceCallback {
     }
 
     private static boolean hasFailures() {
-        for (Player player : players) {
+        for (Player player : playerArray) {
             if (!player.success) {
                 return true;
             }
@@ -296,8 +305,12 @@ public class Player implements DeviceCallback {
         return false;
     }
 
+    public static boolean isShowingMessage() {
+        return System.currentTimeMillis() <= messageTimeout;
+    }
+
     public static void render(Graphics g) {
-        if (System.currentTimeMillis() > messageTimeout) {
+        if (!isShowingMessage()) {
             return;
         }
 
@@ -312,10 +325,10 @@ public class Player implements DeviceCallback {
         int textX = x + (WIDTH - Engine.fontMetrics.stringWidth(text)) / 2;
         int textY = y + (HEIGHT - Engine.fontMetrics.getHeight()) / 2 - 3;
 
-        g.setColor(new Color(0.0f, 0.0f, 0.0f, 0.3f));
+        g.setColor(COLOR_MESSAGE_BACKGROUND);
         g.fillRoundRect(x, y, WIDTH, HEIGHT, 10, 10);
 
-        g.setColor(new Color(0.0f, 0.0f, 0.0f, 0.5f));
+        g.setColor(COLOR_MESSAGE_BORDER);
         g.drawRoundRect(x, y, WIDTH, HEIGHT, 10, 10);
 
         if (System.currentTimeMillis() % (MESSAGE_ANIMATION_SPEED * 2) < MESSAGE_ANIMATION_SPEED) {
@@ -354,6 +367,7 @@ public class Player implements DeviceCallback {
         reset();
         stepMode = STEP_MODE_NONE;
         messageTimeout = System.currentTimeMillis() + MESSAGE_TIMEOUT_PLAYER;
+        FrameScheduler.requestFrame();
     }
 
     public void afterPlayFailed(String errorMessage) {
@@ -361,6 +375,7 @@ public class Player implements DeviceCallback {
         reset();
         stepMode = STEP_MODE_NONE;
         messageTimeout = System.currentTimeMillis() + MESSAGE_TIMEOUT_PLAYER;
+        FrameScheduler.requestFrame();
     }
 
     public void logLine(String line) {
@@ -519,7 +534,7 @@ public class Player implements DeviceCallback {
     }
 
     public static boolean isElementRunning(BaseBarElement element) {
-        for (Player player : players) {
+        for (Player player : playerArray) {
             if (player.isRunningElement(element)) {
                 return true;
             }
@@ -528,7 +543,7 @@ public class Player implements DeviceCallback {
     }
 
     public static boolean isCurrentFeature(BaseBarElement element) {
-        for (Player player : players) {
+        for (Player player : playerArray) {
             if (player.currentFeature == element) {
                 return true;
             }
@@ -537,7 +552,7 @@ public class Player implements DeviceCallback {
     }
 
     public static boolean isCurrentScenario(BaseBarElement element) {
-        for (Player player : players) {
+        for (Player player : playerArray) {
             if (player.currentScenario == element) {
                 return true;
             }
@@ -546,7 +561,7 @@ public class Player implements DeviceCallback {
     }
 
     public static boolean isCurrentBackground(BaseBarElement element) {
-        for (Player player : players) {
+        for (Player player : playerArray) {
             if (player.currentBackground == element) {
                 return true;
             }
@@ -555,7 +570,7 @@ public class Player implements DeviceCallback {
     }
 
     public static boolean isCurrentStep(BaseBarElement element) {
-        for (Player player : players) {
+        for (Player player : playerArray) {
             if (player.currentStep == element && !(player.currentScenario instanceof ScenarioOutlineElement)) {
                 return true;
             }
@@ -564,7 +579,7 @@ public class Player implements DeviceCallback {
     }
 
     public static Color getPlayingColor(BaseBarElement element) {
-        for (Player player : players) {
+        for (Player player : playerArray) {
             if (player.isRunningElement(element)) {
                 return player.runningColor;
             }
@@ -573,7 +588,7 @@ public class Player implements DeviceCallback {
     }
 
     public static Color getPlayingColor(Device device) {
-        for (Player player : players) {
+        for (Player player : playerArray) {
             if (player.device == device) {
                 return player.runningColor;
             }
@@ -582,7 +597,7 @@ public class Player implements DeviceCallback {
     }
 
     public static boolean isDeviceRunning(Device device) {
-        for (Player player : players) {
+        for (Player player : playerArray) {
             if (player.device == device) {
                 return player.running;
             }
@@ -591,7 +606,7 @@ public class Player implements DeviceCallback {
     }
 
     public static boolean isDeviceStarted(Device device) {
-        for (Player player : players) {
+        for (Player player : playerArray) {
             if (player.device == device) {
                 return player.started;
             }
@@ -602,7 +617,7 @@ public class Player implements DeviceCallback {
     private static Color getUnusedPlayingColor() {
         Set<Color> colors = new HashSet<Color>();
         colors.addAll(PLAYING_COLORS);
-        for (Player player : players) {
+        for (Player player : playerArray) {
             colors.remove(player.runningColor);
         }
         if (colors.size() > 0) {
@@ -613,7 +628,7 @@ public class Player implements DeviceCallback {
     }
 
     public static boolean isPausable() {
-        for (Player player : players) {
+        for (Player player : playerArray) {
             if (player.device.getCapabilities().contains(Device.Capability.PAUSE)) {
                 return true;
             }
@@ -622,7 +637,7 @@ public class Player implements DeviceCallback {
     }
     
     public static boolean isStepable() {
-        for (Player player : players) {
+        for (Player player : playerArray) {
             if (player.device.getCapabilities().contains(Device.Capability.STEP)) {
                 return true;
             }
@@ -659,7 +674,7 @@ public class Player implements DeviceCallback {
         if (!isCurrentScenario((BaseBarElement) examplesElement.groupParent)) {
             return false;
         }
-        for (Player player : players) {
+        for (Player player : playerArray) {
             if (player.currentExamples == examplesElement && player.currentExamplesRow == row) {
                 return true;
             }
@@ -669,7 +684,7 @@ public class Player implements DeviceCallback {
 
     public static List<Device> getStartedDevices() {
         List<Device> devices = new LinkedList<Device>();
-        for (Player player : players) {
+        for (Player player : playerArray) {
             devices.add(player.device);
         }
         return devices;
@@ -0,0 +1,208 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.trollsahead.qcumberless.engine;
+
+import com.trollsahead.qcumberless.model.Step;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+public class StepDefinitionIndex {
+    private static final String KEYWORD_GROUP = "(.*) ";
+    private static final String REGEXP_META_CHARACTERS = "\\^$.|?*+()[]{}";
+    private static final String WHITESPACE_CHARACTERS = " \t\n\u000B\f\r";
+
+    private final List<Step> stepDefinitions;
+    private final Map<String, List<Entry>> buckets = new HashMap<String, List<Entry>>();
+    private final List<Entry> unbucketedEntries = new ArrayList<Entry>();
+
+    public StepDefinitionIndex(List<Step> stepDefinitions) {
+        this.stepDefinitions = stepDefinitions;
+        int order = 0;
+        for (Step step : stepDefinitions) {
+            Pattern pattern;
+            try {
+                pattern = step.getPattern();
+            } catch (PatternSyntaxException e) {
+                System.out.println("Invalid step definition: " + step.getDefinition());
+                continue;
+            }
+            Entry entry = new Entry(order++, step, pattern);
+            String bucketKey = findBucketKey(step.getDefinition());
+            if (bucketKey == null) {
+                unbucketedEntries.add(entry);
+            } else {
+                List<Entry> bucket = buckets.get(bucketKey);
+                if (bucket == null) {
+                    bucket = new ArrayList<Entry>();
+                    buckets.put(bucketKey, bucket);
+                }
+                bucket.add(entry);
+            }
+        }
+    }
+
+    public boolean isIndexOf(List<Step> stepDefinitions) {
+        return this.stepDefinitions == stepDefinitions;
+    }
+
+    // Lines are matched without their indentation, the way cucumber reads them. Matching the raw
+    // line made anchored definitions like "^Given ...$" miss every indented step in a feature file.
+    public Match findMatch(String line) {
+        line = stripLeadingSpaces(line);
+        for (Entry entry : findCandidates(line)) {
+            Matcher matcher = entry.pattern.matcher(line);
+            if (matcher.matches()) {
+                String[] parameters = new String[matcher.groupCount()];
+                for (int i = 0; i < parameters.length; i++) {
+                    parameters[i] = matcher.group(i + 1);
+                }
+                return new Match(entry.step, parameters);
+            }
+        }
+        return null;
+    }
+
+    static String stripLeadingSpaces(String line) {
+        int start = 0;
+        while (start < line.length() && WHITESPACE_CHARACTERS.indexOf(line.charAt(start)) != -1) {
+            start++;
+        }
+        return start < line.length() ? line.substring(start) : line;
+    }
+
+    private List<Entry> findCandidates(String line) {
+        if (buckets.isEmpty()) {
+            return unbucketedEntries;
+        }
+        List<List<Entry>> candidateLists = new ArrayList<List<Entry>>();
+        Set<String> keys = new HashSet<String>();
+        String[] words = line.split(" ", -1);
+        for (int i = 0; i < words.length; i++) {
+            addBucket(words[i], keys, candidateLists);
+            if (i < words.length - 1) {
+                addBucket(words[i] + " " + words[i + 1], keys, candidateLists);
+            }
+        }
+        if (candidateLists.isEmpty()) {
+            return unbucketedEntries;
+        }
+        List<Entry> candidates = new ArrayList<Entry>(unbucketedEntries);
+        for (List<Entry> bucket : candidateLists) {
+            candidates.addAll(bucket);
+        }
+        Collections.sort(candidates);
+        return candidates;
+    }
+
+    private void addBucket(String key, Set<String> keys, List<List<Entry>> candidateLists) {
+        if (!keys.add(key)) {
+            return;
+        }
+        List<Entry> bucket = buckets.get(key);
+        if (bucket != null) {
+            candidateLists.add(bucket);
+        }
+    }
+
+    static String findBucketKey(String definition) {
+        if (!definition.startsWith(KEYWORD_GROUP) || hasTopLevelAlternation(definition)) {
+            return null;
+        }
+        int start = KEYWORD_GROUP.length();
+        int end = findLiteralWordEnd(definition, start);
+        if (end == -1) {
+            return null;
+        }
+        int secondEnd = findLiteralWordEnd(definition, end + 1);
+        return definition.substring(start, secondEnd == -1 ? end : secondEnd);
+    }
+
+    private static int findLiteralWordEnd(String definition, int start) {
+        int end = start;
+        while (end < definition.length() && definition.charAt(end) != ' ' && REGEXP_META_CHARACTERS.indexOf(definition.charAt(end)) == -1) {
+            end++;
+        }
+        if (end == start || end >= definition.length() - 1 || definition.charAt(end) != ' ') {
+            return -1;
+        }
+        char next = definition.charAt(end + 1);
+        if (next == '?' || next == '*' || next == '{' || next == '+') {
+            return -1;
+        }
+        return end;
+    }
+
+    private static boolean hasTopLevelAlternation(String definition) {
+        int depth = 0;
+        boolean inCharacterClass = false;
+        for (int i = 0; i < definition.length(); i++) {
+            char ch = definition.charAt(i);
+            if (ch == '\\') {
+                i++;
+            } else if (inCharacterClass) {
+                inCharacterClass = ch != ']';
+            } else if (ch == '[') {
+                inCharacterClass = true;
+            } else if (ch == '(') {
+                depth++;
+            } else if (ch == ')') {
+                depth--;
+            } else if (ch == '|' && depth == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static class Match {
+        public final Step stepDefinition;
+        public final String[] parameters;
+
+        public Match(Step stepDefinition, String[] parameters) {
+            this.stepDefinition = stepDefinition;
+            this.parameters = parameters;
+        }
+    }
+
+    private static class Entry implements Comparable<Entry> {
+        private final int order;
+        private final Step step;
+        private final Pattern pattern;
+
+        private Entry(int order, Step step, Pattern pattern) {
+            this.order = order;
+            this.step = step;
+            this.pattern = pattern;
+        }
+
+        public int compareTo(Entry entry) {
+            return order < entry.order ? -1 : (order == entry.order ? 0 : 1);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.trollsahead.qcumberless.engine;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.trollsahead.qcumberless.engine.StepDefinitionIndex.Match;
+
+public class StepMatchCache {
+    public static final Match NO_MATCH = new Match(null, null);
+
+    private static final int STRIPE_COUNT = 16;
+
+    private final int maxSize;
+    private final List<Map<String, Match>> stripes;
+    private volatile StepDefinitionIndex index = null;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public StepMatchCache(int maxSize) {
+        this.maxSize = maxSize;
+        final int stripeSize = Math.max(1, (maxSize + STRIPE_COUNT - 1) / STRIPE_COUNT);
+        this.stripes = new ArrayList<Map<String, Match>>(STRIPE_COUNT);
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes.add(new LinkedHashMap<String, Match>(16, 0.75f, true) {
+                protected boolean removeEldestEntry(Map.Entry<String, Match> eldest) {
+                    return size() > stripeSize;
+                }
+            });
+        }
+    }
+
+    public Match get(StepDefinitionIndex index, String line) {
+        if (this.index != index) {
+            reset(index);
+        }
+        Map<String, Match> stripe = getStripe(line);
+        Match match;
+        synchronized (stripe) {
+            match = stripe.get(line);
+        }
+        if (match != null) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+        return match;
+    }
+
+    public void put(StepDefinitionIndex index, String line, Match match) {
+        Map<String, Match> stripe = getStripe(line);
+        synchronized (stripe) {
+            if (this.index == index) {
+                stripe.put(line, match != null ? match : NO_MATCH);
+            }
+        }
+    }
+
+    public void invalidate() {
+        reset(null);
+    }
+
+    private synchronized void reset(StepDefinitionIndex index) {
+        if (index != null && this.index == index) {
+            return;
+        }
+        this.index = index;
+        for (Map<String, Match> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    private Map<String, Match> getStripe(String line) {
+        int hash = line.hashCode();
+        return stripes.get((hash ^ (hash >>> 16)) & (STRIPE_COUNT - 1));
+    }
+
+    public int size() {
+        int size = 0;
+        for (Map<String, Match> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public String toString() {
+        return "Step match cache: " + size() + "/" + maxSize + " entries, " + getHitCount() + " hits, " + getMissCount() + " misses";
+    }
+}
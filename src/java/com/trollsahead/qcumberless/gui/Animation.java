@@ -29,6 +29,9 @@ import com.trollsahead.qcumberless.engine.Engine;
 import com.trollsahead.qcumberless.util.Util;
 
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class Animation {
     public static final float FADE_SPEED_DRAG                    = 0.05f;
@@ -48,6 +51,14 @@ public class Animation {
 
     public static final float RESIZE_SPEED = 20.0f;
 
+    private static final float MAX_FRAME_STEPS = 10.0f;
+
+    private static final List<ActiveAnimation> activeAnimations = new ArrayList<ActiveAnimation>();
+
+    private static long lastClockTime = 0;
+    private static float frameSteps = 1.0f;
+    private static int movingCount = 0;
+
     public MoveAnimation moveAnimation = new MoveAnimation();
     public SizeAnimation sizeAnimation = new SizeAnimation();
     public ColorAnimation colorAnimation = new ColorAnimation();
@@ -84,9 +95,6 @@ public class Animation {
     }
 
     public void update(boolean retainPosition) {
-        colorAnimation.update();
-        alphaAnimation.update();
-        sizeAnimation.update();
         moveAnimation.update(retainPosition);
     }
 
@@ -94,6 +102,70 @@ public class Animation {
         update(false);
     }
 
+    public static void advanceClock() {
+        long time = System.nanoTime();
+        if (lastClockTime == 0 || !isAnimating()) {
+            frameSteps = 1.0f;
+        } else {
+            float tickTime = 1000000000.0f / Engine.FRAME_RATE;
+            frameSteps = Math.max(0.0f, Math.min(MAX_FRAME_STEPS, (time - lastClockTime) / tickTime));
+        }
+        lastClockTime = time;
+        movingCount = 0;
+        updateActiveAnimations();
+    }
+
+    private static void updateActiveAnimations() {
+        synchronized (activeAnimations) {
+            int i = 0;
+            while (i < activeAnimations.size()) {
+                ActiveAnimation animation = activeAnimations.get(i);
+                if (animation.step(frameSteps) || animation.isActive()) {
+                    i++;
+                    continue;
+                }
+                animation.setRegistered(false);
+                int last = activeAnimations.size() - 1;
+                activeAnimations.set(i, activeAnimations.get(last));
+                activeAnimations.remove(last);
+            }
+        }
+    }
+
+    private static void register(ActiveAnimation animation) {
+        synchronized (activeAnimations) {
+            if (animation.isRegistered()) {
+                return;
+            }
+            animation.setRegistered(true);
+            activeAnimations.add(animation);
+        }
+    }
+
+    public static float getFrameSteps() {
+        return frameSteps;
+    }
+
+    public static int getActiveCount() {
+        synchronized (activeAnimations) {
+            return activeAnimations.size();
+        }
+    }
+
+    public static boolean isAnimating() {
+        return movingCount > 0 || getActiveCount() > 0;
+    }
+
+    private interface ActiveAnimation {
+        boolean step(float steps);
+
+        boolean isActive();
+
+        boolean isRegistered();
+
+        void setRegistered(boolean registered);
+    }
+
     public static class MoveAnimation {
         public int realX = 0;
         public int realY = 0;
@@ -140,17 +212,19 @@ public class Animation {
         }
 
         public void update(boolean retainRenderPosition) {
-            if (retainRenderPosition) {
+            if (retainRenderPosition || (renderX == realX && renderY == realY)) {
                 return;
             }
-            float deltaX = (renderX - realX) * speed;
-            float deltaY = (renderY - realY) * speed;
+            float decay = frameSteps == 1.0f ? speed : (float) Math.pow(speed, frameSteps);
+            float deltaX = (renderX - realX) * decay;
+            float deltaY = (renderY - realY) * decay;
             if (Math.abs(deltaX) <= 0.1f && Math.abs(deltaY) <= 0.1f) {
                 renderX = realX;
                 renderY = realY;
             } else {
                 renderX = realX + deltaX;
                 renderY = realY + deltaY;
+                movingCount++;
             }
         }
 
@@ -159,14 +233,17 @@ public class Animation {
         }
     }
 
-    public static class ColorAnimation {
+    public static class ColorAnimation implements ActiveAnimation {
         private float[] currentColor = new float[] {0.0f, 0.0f, 0.0f, 0.0f};
         private float[] fromColor = new float[] {0.0f, 0.0f, 0.0f, 0.0f};
         private float[] destColor = new float[] {0.0f, 0.0f, 0.0f, 0.0f};
+        private float[] colorComponents = new float[4];
+        private Color color = null;
         private float speed = FADE_SPEED_ENTRANCE;
         private float progress = 0.0f;
-        public boolean isFading = false;
+        public volatile boolean isFading = false;
         public long becameVisibleAtCount = Engine.renderCounter;
+        private boolean registered = false;
 
         public void setAlpha(float alpha, float speed) {
             this.fromColor = currentColor.clone();
@@ -174,6 +251,7 @@ public class Animation {
             this.speed = speed;
             this.progress = 0.0f;
             this.isFading = true;
+            register(this);
             if (getAlpha() <= 0.0f) {
                 becameVisibleAtCount = Engine.renderCounter;
             }
@@ -197,6 +275,7 @@ public class Animation {
             this.speed = speed;
             this.progress = 0.0f;
             this.isFading = true;
+            register(this);
             if (getAlpha() <= 0.0f) {
                 becameVisibleAtCount = Engine.renderCounter;
             }
@@ -208,6 +287,7 @@ public class Animation {
             this.speed = speed;
             this.progress = 0.0f;
             this.isFading = true;
+            register(this);
             if (getAlpha() <= 0.0f) {
                 becameVisibleAtCount = Engine.renderCounter;
             }
@@ -226,12 +306,18 @@ public class Animation {
         }
         
         public void setColorKeepProgress(Color color) {
-            this.fromColor = currentColor.clone();
-            this.destColor = Util.colorToFloatArray(color);
+            System.arraycopy(currentColor, 0, fromColor, 0, 4);
+            Util.colorToFloatArray(color, destColor);
+            if (progress >= 1.0f) {
+                System.arraycopy(destColor, 0, currentColor, 0, 4);
+            } else {
+                this.isFading = true;
+                register(this);
+            }
         }
 
-        private void update() {
-            progress += speed;
+        public boolean step(float steps) {
+            progress += speed * steps;
             if (progress >= 1.0f) {
                 progress = 1.0f;
                 isFading = false;
@@ -239,10 +325,27 @@ public class Animation {
             for (int i = 0; i < 4; i++) {
                 currentColor[i] = fromColor[i] + (destColor[i] - fromColor[i]) * progress;
             }
+            return isFading;
+        }
+
+        public boolean isActive() {
+            return isFading;
+        }
+
+        public boolean isRegistered() {
+            return registered;
+        }
+
+        public void setRegistered(boolean registered) {
+            this.registered = registered;
         }
 
         public Color getColor() {
-            return new Color(currentColor[0], currentColor[1], currentColor[2], currentColor[3]);
+            if (color == null || !Arrays.equals(colorComponents, currentColor)) {
+                color = new Color(currentColor[0], currentColor[1], currentColor[2], currentColor[3]);
+                System.arraycopy(currentColor, 0, colorComponents, 0, 4);
+            }
+            return color;
         }
 
         public float getAlpha() {
@@ -258,8 +361,9 @@ public class Animation {
         }
     }
 
-    public class SizeAnimation {
-        public boolean isResizing = false;
+    public class SizeAnimation implements ActiveAnimation {
+        public volatile boolean isResizing = false;
+        private boolean registered = false;
         public float currentWidth;
         public float currentHeight;
         public float destWidth;
@@ -271,43 +375,60 @@ public class Animation {
             this.destHeight = destHeight;
             this.speed = speed;
             this.isResizing = true;
+            register(this);
         }
 
         public void setWidth(int width, float speed) {
             this.destWidth = width;
             this.speed = speed;
             this.isResizing = true;
+            register(this);
         }
 
         public void setHeight(int height, float speed) {
             this.destHeight = height;
             this.speed = speed;
             this.isResizing = true;
+            register(this);
         }
 
-        public void update() {
+        public boolean step(float steps) {
             if (!isResizing) {
-                return;
+                return false;
             }
+            float distance = speed * steps;
             if (currentWidth < destWidth) {
-                currentWidth += speed;
+                currentWidth += distance;
                 currentWidth = Math.min(currentWidth, destWidth);
             }
             if (currentWidth > destWidth) {
-                currentWidth -= speed;
+                currentWidth -= distance;
                 currentWidth = Math.max(currentWidth, destWidth);
             }
             if (currentHeight < destHeight) {
-                currentHeight += speed;
+                currentHeight += distance;
                 currentHeight = Math.min(currentHeight, destHeight);
             }
             if (currentHeight > destHeight) {
-                currentHeight -= speed;
+                currentHeight -= distance;
                 currentHeight = Math.max(currentHeight, destHeight);
             }
             if ((int) currentWidth == (int) destWidth && (int) currentHeight == (int) destHeight) {
                 isResizing = false;
             }
+            return isResizing;
+        }
+
+        public boolean isActive() {
+            return isResizing;
+        }
+
+        public boolean isRegistered() {
+            return registered;
+        }
+
+        public void setRegistered(boolean registered) {
+            this.registered = registered;
         }
     }
 }
@@ -82,6 +82,14 @@ public class Button {
     private boolean enabled = true;
     private String hint;
 
+    private RenderOptimizer.ImageTemplate backgroundCache = null;
+    private int backgroundCacheWidth;
+    private int backgroundCacheHeight;
+    private int backgroundCacheState;
+    private boolean backgroundCacheMarked;
+    private Object backgroundCacheAntialiasing;
+    private Object backgroundCacheStrokeControl;
+
     public static boolean isOneTouched = false;
 
     public Button(int x, int y, String text, Image normalImage, Image highlightImage, Image pressedImage, int alignment, ButtonNotification notification, Element parent) {
@@ -194,17 +202,48 @@ public class Button {
 
     private void drawBackground(Graphics g) {
         if (text != null) {
-            g.setColor(!marked ? TEXT_BACKGROUND_COLOR_FILL[state] : TEXT_BACKGROUND_COLOR_FILL_MARKED[state]);
-            g.fillRoundRect(
-                    renderX - TEXT_BACKGROUND_PADDING_HORIZONTAL, renderY - TEXT_BACKGROUND_PADDING_VERTICAL,
-                    renderWidth + TEXT_BACKGROUND_PADDING_HORIZONTAL * 2, renderHeight + TEXT_BACKGROUND_PADDING_VERTICAL * 2,
-                    10, 10);
-            g.setColor(TEXT_BACKGROUND_COLOR_BORDER[state]);
-            g.drawRoundRect(
-                    renderX - TEXT_BACKGROUND_PADDING_HORIZONTAL, renderY - TEXT_BACKGROUND_PADDING_VERTICAL,
-                    renderWidth + TEXT_BACKGROUND_PADDING_HORIZONTAL * 2, renderHeight + TEXT_BACKGROUND_PADDING_VERTICAL * 2,
-                    10, 10);
+            int width = renderWidth + TEXT_BACKGROUND_PADDING_HORIZONTAL * 2;
+            int height = renderHeight + TEXT_BACKGROUND_PADDING_VERTICAL * 2;
+            Graphics2D g2 = (Graphics2D) g;
+            if (!isBackgroundCacheValid(g2, width, height)) {
+                createBackgroundCache(g2, width, height);
+            }
+            g.drawImage(backgroundCache.image, renderX - TEXT_BACKGROUND_PADDING_HORIZONTAL - 1, renderY - TEXT_BACKGROUND_PADDING_VERTICAL - 1, null);
+        }
+    }
+
+    private boolean isBackgroundCacheValid(Graphics2D g, int width, int height) {
+        return backgroundCache != null &&
+               backgroundCacheWidth == width &&
+               backgroundCacheHeight == height &&
+               backgroundCacheState == state &&
+               backgroundCacheMarked == marked &&
+               backgroundCacheAntialiasing == g.getRenderingHint(RenderingHints.KEY_ANTIALIASING) &&
+               backgroundCacheStrokeControl == g.getRenderingHint(RenderingHints.KEY_STROKE_CONTROL);
+    }
+
+    private void createBackgroundCache(Graphics2D g, int width, int height) {
+        if (backgroundCache != null) {
+            backgroundCache.graphics.dispose();
+        }
+        backgroundCache = RenderOptimizer.createUnsharedImageTemplate(width + 2, height + 2);
+        backgroundCacheWidth = width;
+        backgroundCacheHeight = height;
+        backgroundCacheState = state;
+        backgroundCacheMarked = marked;
+        backgroundCacheAntialiasing = g.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+        backgroundCacheStrokeControl = g.getRenderingHint(RenderingHints.KEY_STROKE_CONTROL);
+        Graphics2D cacheGraphics = backgroundCache.graphics;
+        if (backgroundCacheAntialiasing != null) {
+            cacheGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, backgroundCacheAntialiasing);
+        }
+        if (backgroundCacheStrokeControl != null) {
+            cacheGraphics.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, backgroundCacheStrokeControl);
         }
+        cacheGraphics.setColor(!marked ? TEXT_BACKGROUND_COLOR_FILL[state] : TEXT_BACKGROUND_COLOR_FILL_MARKED[state]);
+        cacheGraphics.fillRoundRect(1, 1, width, height, 10, 10);
+        cacheGraphics.setColor(TEXT_BACKGROUND_COLOR_BORDER[state]);
+        cacheGraphics.drawRoundRect(1, 1, width, height, 10, 10);
     }
 
     private void drawText(Graphics g) {
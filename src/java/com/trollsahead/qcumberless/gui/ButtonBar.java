@@ -114,8 +114,8 @@ public class ButtonBar {
         instance = this;
         animation = new Animation(COLOR_BACKGROUND_NORMAL);
         addPluginButtons();
-        deviceButtons = new LinkedList<DeviceButton>();
-        buttons = new LinkedList<Button>();
+        deviceButtons = new ArrayList<DeviceButton>();
+        buttons = new ArrayList<Button>();
         pauseButton = new Button(
                 0, 0,
                 Images.getImage(Images.IMAGE_PAUSE, ThumbnailState.NORMAL.ordinal()),
@@ -330,7 +330,7 @@ public class ButtonBar {
     }
 
     private void addPluginButtons() {
-        pluginButtons = new LinkedList<Button>();
+        pluginButtons = new ArrayList<Button>();
         for (Plugin plugin : Engine.plugins) {
             List<ButtonBarMethodCallback> callbacks = plugin.getButtonBarMethods();
             if (Util.isEmpty(callbacks)) {
@@ -367,7 +367,7 @@ public class ButtonBar {
     }
 
     public void updateDevices(Set<Device> devices) {
-        deviceButtons = new LinkedList<DeviceButton>();
+        deviceButtons = new ArrayList<DeviceButton>();
         for (final Device device : devices) {
             DeviceButton button = new DeviceButton(
                     0, 0,
@@ -614,14 +614,15 @@ public class ButtonBar {
     }
 
     private void renderButtons(Graphics g) {
-        for (Button button : buttons) {
-            button.setOffset(renderX, renderY);
+        for (int i = 0; i < buttons.size(); i++) {
+            buttons.get(i).setOffset(renderX, renderY);
         }
         restrictTerminalButtonToWindow();
-        for (Button button : buttons) {
-            button.render(g);
+        for (int i = 0; i < buttons.size(); i++) {
+            buttons.get(i).render(g);
         }
-        for (Button button : pluginButtons) {
+        for (int i = 0; i < pluginButtons.size(); i++) {
+            Button button = pluginButtons.get(i);
             button.setOffset(renderX, renderY);
             button.render(g);
         }
@@ -636,10 +637,11 @@ public class ButtonBar {
 
     private void renderDevices(Graphics2D g) {
         if (deviceButtons.isEmpty()) {
-            g.setColor(new Color(1.0f, 1.0f, 1.0f, 1.0f));
+            g.setColor(Color.WHITE);
             g.drawString(TEXT_NO_DEVICES, Engine.windowWidth - Engine.fontMetrics.stringWidth(TEXT_NO_DEVICES) - BUTTON_PADDING, renderY + ((renderHeight + Engine.fontMetrics.getHeight()) / 2) - 3);
         } else {
-            for (DeviceButton button : deviceButtons) {
+            for (int i = 0; i < deviceButtons.size(); i++) {
+                DeviceButton button = deviceButtons.get(i);
                 button.setOffset(0, renderY);
                 button.render(g);
                 renderDeviceState(g, button);
@@ -26,6 +26,7 @@
 package com.trollsahead.qcumberless.gui;
 
 import com.trollsahead.qcumberless.engine.DesignerEngine;
+import com.trollsahead.qcumberless.engine.FeatureLoader;
 import com.trollsahead.qcumberless.gui.elements.BaseBarElement;
 import com.trollsahead.qcumberless.gui.elements.GroupingElement;
 import com.trollsahead.qcumberless.gui.elements.StepElement;
@@ -40,6 +41,7 @@ public class CucumberStepDefinitionLoader {
             return;
         }
         DesignerEngine.resetStepDefinitions(true);
+        List<Step> stepDefinitions = new ArrayList<Step>();
         List<BaseBarElement> groups = new ArrayList<BaseBarElement>();
         for (String name : stepDefinitionMap.keySet()) {
             GroupingElement groupingElement = new GroupingElement(BaseBarElement.ROOT_STEP_DEFINITIONS, name);
@@ -48,7 +50,7 @@ public class CucumberStepDefinitionLoader {
             for (StepDefinition stepDefinition : stepDefinitionMap.get(name)) {
                 Step currentStep = new Step(stepDefinition);
                 currentStep.setShouldRenderKeyword(false);
-                DesignerEngine.stepDefinitions.add(currentStep);
+                stepDefinitions.add(currentStep);
                 elements.add(new StepElement(BaseBarElement.ROOT_STEP_DEFINITIONS, stepDefinition.getStepDefinition(), currentStep));
             }
             Collections.sort(elements, new Comparator<BaseBarElement>() {
@@ -64,5 +66,7 @@ public class CucumberStepDefinitionLoader {
         for (BaseBarElement element : groups) {
             DesignerEngine.stepsRoot.addChild(element);
         }
+        DesignerEngine.stepDefinitions = stepDefinitions;
+        FeatureLoader.getStepMatchCache().invalidate();
     }
 }
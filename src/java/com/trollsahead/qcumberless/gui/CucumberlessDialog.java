@@ -27,6 +27,7 @@ package com.trollsahead.qcumberless.gui;
 
 import com.trollsahead.qcumberless.engine.DesignerEngine;
 import com.trollsahead.qcumberless.engine.Engine;
+import com.trollsahead.qcumberless.engine.FrameScheduler;
 import com.trollsahead.qcumberless.util.ConfigurationManager;
 import com.trollsahead.qcumberless.util.FileUtil;
 import com.trollsahead.qcumberless.util.Util;
@@ -173,15 +174,18 @@ public class CucumberlessDialog extends JFrame {
 
         public void keyTyped(KeyEvent keyEvent) {
             EditBox.setText(textComponent.getText());
+            FrameScheduler.inputReceived();
         }
 
         public void keyPressed(KeyEvent keyEvent) {
             EditBox.setText(textComponent.getText());
+            FrameScheduler.inputReceived();
         }
 
         public void keyReleased(KeyEvent keyEvent) {
             EditBox.setText(textComponent.getText());
             EditBox.keyPressed(keyEvent);
+            FrameScheduler.inputReceived();
         }
     }
 }
@@ -26,6 +26,7 @@
 package com.trollsahead.qcumberless.gui;
 
 import com.trollsahead.qcumberless.engine.Engine;
+import com.trollsahead.qcumberless.engine.FrameProfiler;
 
 import javax.swing.*;
 import java.awt.*;
@@ -39,7 +40,9 @@ public class CumberlessCanvas extends JPanel {
 
     public void paintComponent(Graphics g) {
         synchronized (Engine.RENDER_LOCK) {
-            g.drawImage(Engine.backbuffer, 0, 0, this);
+            long startTime = System.nanoTime();
+            Engine.backbuffer.draw(g, this);
+            FrameProfiler.BLIT.record(System.nanoTime() - startTime);
         }
     }
 }
@@ -26,6 +26,7 @@
 package com.trollsahead.qcumberless.gui;
 
 import com.trollsahead.qcumberless.engine.Engine;
+import com.trollsahead.qcumberless.engine.FrameScheduler;
 
 import java.awt.event.*;
 
@@ -43,42 +44,47 @@ public class CumberlessMouseListener implements MouseListener, MouseMotionListen
     public void mouseClicked(MouseEvent mouseEvent) {
         updateMousePosition(mouseEvent);
         Engine.click(mouseEvent.getClickCount());
+        FrameScheduler.inputReceived();
     }
 
     public void mousePressed(MouseEvent mouseEvent) {
         updateMousePosition(mouseEvent);
-        if (mouseEvent.getButton() != 1) {
-            return;
+        if (mouseEvent.getButton() == 1) {
+            isButtonPressed = true;
+            Engine.mousePressed(mouseEvent.isControlDown());
         }
-        isButtonPressed = true;
-        Engine.mousePressed(mouseEvent.isControlDown());
+        FrameScheduler.inputReceived();
     }
 
     public void mouseReleased(MouseEvent mouseEvent) {
         updateMousePosition(mouseEvent);
-        if (mouseEvent.getButton() != 1) {
-            return;
+        if (mouseEvent.getButton() == 1) {
+            isButtonPressed = false;
+            Engine.mouseReleased();
         }
-        isButtonPressed = false;
-        Engine.mouseReleased();
+        FrameScheduler.inputReceived();
     }
 
     public void mouseEntered(MouseEvent mouseEvent) {
         updateMousePosition(mouseEvent);
+        FrameScheduler.inputReceived();
     }
 
     public void mouseExited(MouseEvent mouseEvent) {
         updateMousePosition(mouseEvent);
+        FrameScheduler.inputReceived();
     }
 
     public void mouseDragged(MouseEvent mouseEvent) {
         updateMousePosition(mouseEvent);
         Engine.mouseDragged();
+        FrameScheduler.inputReceived();
     }
 
     public void mouseMoved(MouseEvent mouseEvent) {
         updateMousePosition(mouseEvent);
         Engine.mouseMoved();
+        FrameScheduler.inputReceived();
     }
 
     private void updateMousePosition(MouseEvent mouseEvent) {
@@ -90,5 +96,6 @@ public class CumberlessMouseListener implements MouseListener, MouseMotionListen
 
     public void mouseWheelMoved(MouseWheelEvent mouseWheelEvent) {
         Engine.mouseWheelMoved(mouseWheelEvent.getWheelRotation());
+        FrameScheduler.inputReceived();
     }
 }
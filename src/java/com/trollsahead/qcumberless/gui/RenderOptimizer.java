@@ -22,10 +22,11 @@
 // ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
 // (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
 // SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
-
 package com.trollsahead.qcumberless.gui;
 
 import com.trollsahead.qcumberless.engine.Engine;
+import com.trollsahead.qcumberless.engine.FrameProfiler;
+import com.trollsahead.qcumberless.util.ConfigurationManager;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
@@ -34,82 +35,221 @@ import java.util.Map;
 
 public class RenderOptimizer {
     private static final int MAX_UNUSED_COUNT = 10;
+    private static final int WIDTH_BUCKET = 16;
+    private static final int HEIGHT_BUCKET = 4;
+    private static final int BYTES_PER_PIXEL = 4;
+    private static final long DEFAULT_TEMPLATE_BUDGET_MB = 32;
+
+    private static Map<TemplateKey, ImageTemplate> templates;
+    private static TemplateKey lookupKey;
+    private static ImageTemplate mostRecentlyUsed;
+    private static ImageTemplate leastRecentlyUsed;
+    private static long updateCount;
 
-    private static Map<String, ImageTemplate> templates;
+    private static long templateBytes;
+    private static long templateBudget;
+
+    private static long hits;
+    private static long misses;
+    private static long evictions;
+    private static long expirations;
 
     public static GraphicsConfiguration graphicsConfiguration;
 
     static {
-        GraphicsEnvironment graphicsEnvironment = GraphicsEnvironment.getLocalGraphicsEnvironment();
-        GraphicsDevice graphicsDevice = graphicsEnvironment.getDefaultScreenDevice();
-        graphicsConfiguration = graphicsDevice.getDefaultConfiguration();
+        if (!GraphicsEnvironment.isHeadless()) {
+            GraphicsEnvironment graphicsEnvironment = GraphicsEnvironment.getLocalGraphicsEnvironment();
+            GraphicsDevice graphicsDevice = graphicsEnvironment.getDefaultScreenDevice();
+            graphicsConfiguration = graphicsDevice.getDefaultConfiguration();
+        }
     }
 
     public static void initialize() {
-        templates = new HashMap<String, ImageTemplate>();
+        templates = new HashMap<TemplateKey, ImageTemplate>();
+        lookupKey = new TemplateKey(0L);
+        mostRecentlyUsed = null;
+        leastRecentlyUsed = null;
+        updateCount = 0;
+        templateBytes = 0;
+        templateBudget = getTemplateBudgetMb() * 1024L * 1024L;
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+        expirations = 0;
     }
 
     public static void update() {
-        if (hasUnusedTemplates()) {
-            removeUnusedTemplates();
-        }
-    }
-
-    private static boolean hasUnusedTemplates() {
-        for (ImageTemplate template : templates.values()) {
-            template.unusedCount++;
-            if (template.unusedCount > MAX_UNUSED_COUNT) {
-                return true;
-            }
+        updateCount++;
+        while (leastRecentlyUsed != null && updateCount - leastRecentlyUsed.lastUsed > MAX_UNUSED_COUNT) {
+            removeTemplate(leastRecentlyUsed);
+            expirations++;
         }
-        return false;
-    }
-
-    private static void removeUnusedTemplates() {
-        Map<String, ImageTemplate> newTemplates = new HashMap<String, ImageTemplate>();
-        for (String key : templates.keySet()) {
-            ImageTemplate template = templates.get(key);
-            if (template.unusedCount <= MAX_UNUSED_COUNT) {
-                newTemplates.put(key, template);
-            }
-        }
-        templates = newTemplates;
     }
 
     public static ImageTemplate getImageTemplate(int width, int height) {
-        String key = getKey(width, height);
-        ImageTemplate template = templates.get(key);
+        int bucketWidth = roundUp(width, WIDTH_BUCKET);
+        int bucketHeight = roundUp(height, HEIGHT_BUCKET);
+        lookupKey.key = getKey(bucketWidth, bucketHeight);
+        ImageTemplate template = templates.get(lookupKey);
         if (template == null) {
-            return createImageTemplate(width, height);
+            misses++;
+            FrameProfiler.templateMisses++;
+            template = createImageTemplate(bucketWidth, bucketHeight);
+        } else {
+            hits++;
+            FrameProfiler.templateHits++;
+            unlink(template);
+            linkFirst(template);
         }
-        template.unusedCount = 0;
+        template.lastUsed = updateCount;
+        template.width = width;
+        template.height = height;
         return template;
     }
-    
+
     private static ImageTemplate createImageTemplate(int width, int height) {
-        String key = getKey(width, height);
+        ImageTemplate template = createUnsharedImageTemplate(width, height);
+        template.key = new TemplateKey(getKey(width, height));
+        template.bytes = (long) width * height * BYTES_PER_PIXEL;
+        templates.put(template.key, template);
+        linkFirst(template);
+        templateBytes += template.bytes;
+        while (templateBytes > templateBudget && leastRecentlyUsed != template) {
+            removeTemplate(leastRecentlyUsed);
+            evictions++;
+        }
+        return template;
+    }
+
+    public static ImageTemplate createUnsharedImageTemplate(int width, int height) {
         BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
         Graphics2D graphics = image.createGraphics();
         graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         graphics.setFont(Engine.FONT_DEFAULT);
-        ImageTemplate template = new ImageTemplate(image, graphics);
-        templates.put(key, template);
-        return template;
+        return new ImageTemplate(image, graphics);
+    }
+
+    private static void removeTemplate(ImageTemplate template) {
+        templates.remove(template.key);
+        unlink(template);
+        templateBytes -= template.bytes;
+        template.graphics.dispose();
+        template.image.flush();
+    }
+
+    private static void linkFirst(ImageTemplate template) {
+        template.previous = null;
+        template.next = mostRecentlyUsed;
+        if (mostRecentlyUsed != null) {
+            mostRecentlyUsed.previous = template;
+        }
+        mostRecentlyUsed = template;
+        if (leastRecentlyUsed == null) {
+            leastRecentlyUsed = template;
+        }
+    }
+
+    private static void unlink(ImageTemplate template) {
+        if (template.previous != null) {
+            template.previous.next = template.next;
+        } else {
+            mostRecentlyUsed = template.next;
+        }
+        if (template.next != null) {
+            template.next.previous = template.previous;
+        } else {
+            leastRecentlyUsed = template.previous;
+        }
+        template.previous = null;
+        template.next = null;
+    }
+
+    private static int roundUp(int value, int bucket) {
+        return ((Math.max(value, 1) + bucket - 1) / bucket) * bucket;
     }
-    
-    private static String getKey(int width, int height) {
-        return width + "," + height;
+
+    private static long getKey(int width, int height) {
+        return ((long) width << 32) | (height & 0xFFFFFFFFL);
+    }
+
+    private static long getTemplateBudgetMb() {
+        try {
+            return Long.parseLong(ConfigurationManager.get("imageTemplateBudget").trim());
+        } catch (Exception e) {
+            return DEFAULT_TEMPLATE_BUDGET_MB;
+        }
+    }
+
+    public static int getTemplateCount() {
+        return templates != null ? templates.size() : 0;
+    }
+
+    public static long getTemplateBytes() {
+        return templateBytes;
+    }
+
+    public static long getHits() {
+        return hits;
+    }
+
+    public static long getMisses() {
+        return misses;
+    }
+
+    public static long getEvictions() {
+        return evictions;
+    }
+
+    public static long getExpirations() {
+        return expirations;
+    }
+
+    public static String getStatistics() {
+        return "Template pool: " + getTemplateCount() + " templates, " + (templateBytes / 1024) + "/" + (templateBudget / 1024) + " KB, " +
+               "hits: " + hits + ", misses: " + misses + ", evicted: " + evictions + ", expired: " + expirations;
+    }
+
+    private static class TemplateKey {
+        private long key;
+
+        private TemplateKey(long key) {
+            this.key = key;
+        }
+
+        public boolean equals(Object o) {
+            return o instanceof TemplateKey && ((TemplateKey) o).key == key;
+        }
+
+        public int hashCode() {
+            return (int) (key >>> 32) * 31 + (int) key;
+        }
     }
 
     public static class ImageTemplate {
         public BufferedImage image;
         public Graphics2D graphics;
-        public int unusedCount;
+        public int width;
+        public int height;
+
+        private TemplateKey key;
+        private long bytes;
+        private long lastUsed;
+        private ImageTemplate previous;
+        private ImageTemplate next;
 
         public ImageTemplate(BufferedImage image, Graphics2D graphics) {
             this.image = image;
             this.graphics = graphics;
-            unusedCount = 0;
+            this.width = image.getWidth();
+            this.height = image.getHeight();
+        }
+
+        public void draw(Graphics g, int x, int y) {
+            if (width == image.getWidth() && height == image.getHeight()) {
+                g.drawImage(image, x, y, null);
+            } else {
+                g.drawImage(image, x, y, x + width, y + height, 0, 0, width, height, null);
+            }
         }
     }
 }
@@ -29,8 +29,12 @@ import com.trollsahead.qcumberless.device.Device;
 import com.trollsahead.qcumberless.engine.DesignerEngine;
 import com.trollsahead.qcumberless.engine.Engine;
 import com.trollsahead.qcumberless.engine.FlashingMessageManager;
+import com.trollsahead.qcumberless.engine.FrameScheduler;
 import com.trollsahead.qcumberless.engine.Player;
+import com.trollsahead.qcumberless.gui.elements.Element;
 import com.trollsahead.qcumberless.model.ConsoleOutput;
+import com.trollsahead.qcumberless.model.Constants;
+import com.trollsahead.qcumberless.model.LogSearchIndex;
 import com.trollsahead.qcumberless.util.FileUtil;
 import com.trollsahead.qcumberless.util.Util;
 
@@ -39,9 +43,12 @@ import static com.trollsahead.qcumberless.gui.Animation.MoveAnimation;
 import static com.trollsahead.qcumberless.gui.ExtendedButtons.DeviceButton;
 
 import java.awt.*;
+import java.awt.event.KeyEvent;
 import java.io.File;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 public class Terminal {
     private static final int BUTTON_PADDING_HORIZONTAL = ButtonBar.BUTTON_PADDING;
@@ -52,6 +59,12 @@ public class Terminal {
 
     private static final Color[] COLOR_TEXT = {new Color(0.4f, 1.0f, 0.4f), new Color(0.8f, 0.8f, 0.8f), new Color(0.8f, 0.8f, 0.8f)};
     private static final Color[] COLOR_BACKGROUND = {new Color(0.0f, 0.0f, 0.0f), new Color(0.5f, 0.1f, 0.1f), new Color(0.0f, 0.0f, 0.0f)};
+    private static final Color COLOR_BACKGROUND_SEARCH_MATCH = new Color(0.3f, 0.3f, 0.0f);
+    private static final Color COLOR_BACKGROUND_SEARCH = new Color(0.2f, 0.2f, 0.2f);
+    private static final Color COLOR_TEXT_SEARCH = new Color(1.0f, 1.0f, 0.4f);
+    private static final Color COLOR_TEXT_SEARCH_NO_MATCH = new Color(1.0f, 0.4f, 0.4f);
+
+    private static final int SEARCH_PADDING = 4;
 
     private static FontMetrics fontMetrics = null;
 
@@ -62,6 +75,17 @@ public class Terminal {
 
     private static MoveAnimation position = new MoveAnimation();
     private static int scroll = -1;
+    private static LogLine[] visibleRows = new LogLine[0];
+    private static int[] visibleRowLines = new int[0];
+
+    private static String searchString = "";
+    private static int searchLine = -1;
+    private static boolean searchFailed = false;
+    private static Element searchElement = null;
+    private static int searchGeneration = 0;
+    private static Future<?> searchTask = null;
+
+    private static final ExecutorService searchExecutor = Util.newDaemonExecutor("Terminal search");
 
     private static Device currentDevice = null;
 
@@ -85,6 +109,7 @@ public class Terminal {
                         }
                         currentDevice.getConsoleOutput().clearLog();
                         scroll = -1;
+                        clearSearch();
                     }
                 },
                 null);
@@ -156,6 +181,7 @@ public class Terminal {
         g.setColor(Color.BLACK);
         g.fillRect(0, (int) position.renderY, Engine.windowWidth, height);
         drawText(g);
+        drawSearch(g);
         for (Button button : buttons) {
             button.setOffset(0, (int) position.renderY);
             button.render(g);
@@ -176,24 +202,21 @@ public class Terminal {
             fontMetrics = g.getFontMetrics();
         }
 
-        List<LogLine> output = getConsoleOutput();
-
         int rows = getNumberOfRows();
+        int count = getConsoleOutput().getTextWrappedRows(Engine.windowWidth, fontMetrics, scroll == -1 ? 0 : scroll, getVisibleRows(rows), visibleRowLines);
         int y = (int) position.renderY + PADDING_TOP;
-        int scrollValue = scroll == -1 ? 0 : scroll;
-        for (int i = 0; i < rows; i++) {
-            int idx = output.size() - rows + i - scrollValue;
-            if (idx < 0 || idx >= output.size()) {
-                continue;
-            }
+        for (int i = 0; i < count; i++) {
             int oldY = y;
             y += fontMetrics.getHeight();
             if (y > Engine.windowHeight) {
                 break;
             }
-            LogLine logLine = output.get(idx);
+            LogLine logLine = visibleRows[i];
             int playStateIndex = getPlayStateIndex(logLine);
-            if (playStateIndex == 1) {
+            if (searchLine != -1 && visibleRowLines[i] == searchLine) {
+                g.setColor(COLOR_BACKGROUND_SEARCH_MATCH);
+                g.fillRect(0, oldY + 3, Engine.windowWidth, fontMetrics.getHeight());
+            } else if (playStateIndex == 1) {
                 g.setColor(COLOR_BACKGROUND[playStateIndex]);
                 g.fillRect(0, oldY + 3, Engine.windowWidth, fontMetrics.getHeight());
             }
@@ -203,6 +226,21 @@ public class Terminal {
         g.setFont(oldFont);
     }
 
+    private static void drawSearch(Graphics2D g) {
+        if (Util.isEmpty(searchString)) {
+            return;
+        }
+        String text = "Search: " + searchString;
+        int width = Engine.fontMetrics.stringWidth(text) + SEARCH_PADDING * 2;
+        int height = Engine.fontMetrics.getHeight() + SEARCH_PADDING;
+        int x = Engine.windowWidth - width - BUTTON_PADDING_HORIZONTAL;
+        int y = (int) position.renderY + getProportionalHeight() - BUTTON_PADDING_VERTICAL - height;
+        g.setColor(COLOR_BACKGROUND_SEARCH);
+        g.fillRect(x, y, width, height);
+        g.setColor(searchFailed ? COLOR_TEXT_SEARCH_NO_MATCH : COLOR_TEXT_SEARCH);
+        g.drawString(text, x + SEARCH_PADDING, y + height - Engine.fontMetrics.getDescent() - SEARCH_PADDING / 2);
+    }
+
     private static int getPlayStateIndex(LogLine logLine) {
         if (logLine.element != null) {
             if (logLine.element.getPlayResult().isFailed()) {
@@ -264,9 +302,20 @@ public class Terminal {
         return (getProportionalHeight() / fontMetrics.getHeight()) - 2;
     }
 
-    private static List<LogLine> getConsoleOutput() {
-        ConsoleOutput console = currentDevice.getConsoleOutput();
-        return console.getTextWrappedLog(Engine.windowWidth, fontMetrics);
+    private static ConsoleOutput getConsoleOutput() {
+        return currentDevice.getConsoleOutput();
+    }
+
+    private static LogLine[] getVisibleRows(int rows) {
+        rows = Math.max(0, rows);
+        if (visibleRows.length != rows) {
+            visibleRows = new LogLine[rows];
+            visibleRowLines = new int[rows];
+            for (int i = 0; i < rows; i++) {
+                visibleRows[i] = new LogLine(null, null);
+            }
+        }
+        return visibleRows;
     }
 
     private static boolean hasDevices() {
@@ -288,14 +337,125 @@ public class Terminal {
     }
 
    public static void scroll(int unitsToScroll) {
-        int lastIndex = getConsoleOutput().size() - getNumberOfRows();
         if (scroll == -1) {
             scroll = 0;
         }
         scroll -= unitsToScroll;
+        int lastIndex = getConsoleOutput().getMaxTextWrappedScroll(Engine.windowWidth, fontMetrics, getNumberOfRows(), scroll);
         scroll = Math.max(0, Math.min(lastIndex, scroll));
     }
 
+    public static boolean searchKeyPressed(KeyEvent e) {
+        if (!visible || currentDevice == null || fontMetrics == null) {
+            return false;
+        }
+        if (e.getKeyCode() == KeyEvent.VK_ESCAPE || e.getKeyCode() == KeyEvent.VK_ENTER || e.getKeyCode() == KeyEvent.VK_BACK_SPACE) {
+            if (Util.isEmpty(searchString)) {
+                return false;
+            }
+            if (e.getKeyCode() == KeyEvent.VK_ESCAPE) {
+                clearSearch();
+            } else if (e.getKeyCode() == KeyEvent.VK_ENTER) {
+                findMatch(searchLine == -1 && !e.isShiftDown() ? Integer.MAX_VALUE : searchLine, e.isShiftDown());
+            } else {
+                searchString = searchString.substring(0, searchString.length() - 1);
+                if (Util.isEmpty(searchString)) {
+                    clearSearch();
+                } else {
+                    findMatch(Integer.MAX_VALUE, false);
+                }
+            }
+            return true;
+        }
+        char ch = e.getKeyChar();
+        if (ch == KeyEvent.CHAR_UNDEFINED || Character.isISOControl(ch)) {
+            return false;
+        }
+        if (Util.isEmpty(searchString) && Constants.reservedKeys.contains(ch)) {
+            return false;
+        }
+        searchString += ch;
+        findMatch(Integer.MAX_VALUE, false);
+        return true;
+    }
+
+    private static void findMatch(final int fromLine, final boolean forward) {
+        cancelSearch();
+        if (!LogSearchIndex.isSearchable(searchString)) {
+            searchFailed = false;
+            searchLine = -1;
+            markSearchElement(null);
+            return;
+        }
+        final ConsoleOutput console = getConsoleOutput();
+        final String query = searchString;
+        final int generation = searchGeneration;
+        final FontMetrics metrics = fontMetrics;
+        final int width = Engine.windowWidth;
+        final int rows = getNumberOfRows();
+        searchTask = searchExecutor.submit(new Runnable() {
+            public void run() {
+                int line = console.findLine(query, fromLine, forward);
+                LogLine logLine = null;
+                int newScroll = 0;
+                if (line != -1) {
+                    logLine = console.getLine(line);
+                    newScroll = console.getTextWrappedRowsFrom(width, metrics, line) - rows + rows / 3;
+                    int lastIndex = console.getMaxTextWrappedScroll(width, metrics, rows, newScroll);
+                    newScroll = Math.max(0, Math.min(lastIndex, newScroll));
+                }
+                synchronized (Engine.DATA_LOCK) {
+                    if (generation != searchGeneration) {
+                        return;
+                    }
+                    searchTask = null;
+                    applyMatch(line, fromLine, logLine, newScroll);
+                }
+                FrameScheduler.requestFrame();
+            }
+        });
+    }
+
+    private static void applyMatch(int line, int fromLine, LogLine logLine, int newScroll) {
+        searchFailed = line == -1;
+        if (searchFailed) {
+            if (fromLine == Integer.MAX_VALUE) {
+                searchLine = -1;
+                markSearchElement(null);
+            }
+            return;
+        }
+        searchLine = line;
+        markSearchElement(logLine != null ? logLine.element : null);
+        scroll = newScroll;
+    }
+
+    private static void cancelSearch() {
+        searchGeneration++;
+        if (searchTask != null) {
+            searchTask.cancel(true);
+            searchTask = null;
+        }
+    }
+
+    private static void markSearchElement(Element element) {
+        if (searchElement != null) {
+            searchElement.setSearchMatch(false);
+        }
+        searchElement = element;
+        if (searchElement != null) {
+            searchElement.setSearchMatch(true);
+        }
+    }
+
+    private static void clearSearch() {
+        cancelSearch();
+        searchString = "";
+        searchLine = -1;
+        searchFailed = false;
+        markSearchElement(null);
+    }
+
     public static void mouseDragged() {
     }
 
@@ -325,6 +485,7 @@ public class Terminal {
                         public void onClick() {
                             currentDevice = device;
                             scroll = -1;
+                            clearSearch();
                         }
                     },
                     device);
@@ -29,6 +29,7 @@ import com.trollsahead.qcumberless.engine.*;
 import com.trollsahead.qcumberless.gui.*;
 import com.trollsahead.qcumberless.gui.Button;
 import com.trollsahead.qcumberless.model.*;
+import com.trollsahead.qcumberless.util.ConfigurationManager;
 import com.trollsahead.qcumberless.util.ElementHelper;
 import com.trollsahead.qcumberless.util.FileUtil;
 import com.trollsahead.qcumberless.util.HistoryHelper;
@@ -39,7 +40,6 @@ import static com.trollsahead.qcumberless.gui.Images.ThumbnailState;
 import static com.trollsahead.qcumberless.gui.RenderOptimizer.ImageTemplate;
 
 import java.awt.*;
-import java.awt.image.BufferedImage;
 import java.io.*;
 import java.util.Arrays;
 import java.util.List;
@@ -85,6 +85,7 @@ public abstract class BaseBarElement extends Element {
     protected static final Color COLOR_BORDER_SHADOW  = new Color(0.0f, 0.0f, 0.0f, 0.8f);
     protected static final Color COLOR_BORDER_PLAYING = new Color(0.0f, 0.0f, 0.0f, 0.4f);
     protected static final Color COLOR_BORDER_EDITING = new Color(1.0f, 1.0f, 0.5f, 0.8f);
+    protected static final Color COLOR_BORDER_SEARCH_MATCH = new Color(1.0f, 0.6f, 0.0f, 0.9f);
 
     public static final float BORDER_STROKE_WIDTH = 1.5f;
 
@@ -168,12 +169,34 @@ public abstract class BaseBarElement extends Element {
     protected int buttonGroupHeight = 0;
     protected boolean buttonGroupVisible = false;
     protected boolean buttonGroupVisibleOld = false;
+    private boolean buttonsVisible = true;
     protected int buttonGroupWidth = 0;
     protected int buttonGroupCount = 0;
     protected Button buttonGroupSingleButton = null;
 
     protected Element lastBubbledElement = null;
 
+    private static Boolean renderCacheEnabled = null;
+
+    private ImageTemplate renderCache = null;
+    private AlphaComposite paintComposite = null;
+    private int renderVersion = 0;
+    private int renderCacheVersion = -1;
+    private int renderCacheWidth;
+    private int renderCacheHeight;
+    private int renderCacheColor;
+    private float renderCacheAlpha;
+    private boolean renderCacheHighlighted;
+    private boolean renderCacheEditing;
+    private boolean renderCacheSearchMatch;
+    private boolean renderCacheTagsVisible;
+    private int renderCacheRootType;
+    private ColorScheme renderCacheColorScheme;
+    private Step renderCacheStep;
+    private String renderCacheTags;
+    private List<String> renderCacheComment;
+    private CucumberStepPart renderCacheTouchedPart;
+
     protected long lastRenderCount = 0;
 
     protected PlayResult playResult;
@@ -413,11 +436,13 @@ public abstract class BaseBarElement extends Element {
             commentWrapped = null;
         }
         step = FeatureLoader.findMatchingStep(this.title);
+        invalidateRenderCache();
     }
 
     public void setTitle(String title) {
         this.title = Util.isEmpty(title) ? "-" : title;
         step = FeatureLoader.findMatchingStep(this.title);
+        invalidateRenderCache();
     }
 
     public void setFilename(String filename) {
@@ -430,11 +455,13 @@ public abstract class BaseBarElement extends Element {
 
     public void setTags(String tags) {
         this.tags = new Tag(tags);
+        invalidateRenderCache();
     }
 
     public void setComment(String comment) {
         this.comment = comment;
         this.commentWrapped = null;
+        invalidateRenderCache();
     }
 
     public String getComment() {
@@ -454,6 +481,10 @@ public abstract class BaseBarElement extends Element {
         if (groupParent == null) {
             return;
         }
+        if (!isHighlighted() && !buttonsVisible) {
+            toggleButtonGroup(false);
+            return;
+        }
         for (Button button : buttons) {
             button.setVisible(false);
         }
@@ -463,8 +494,10 @@ public abstract class BaseBarElement extends Element {
         if (!isHighlighted()) {
             expandButton.setVisible(false);
             toggleButtonGroup(false);
+            buttonsVisible = false;
             return;
         }
+        buttonsVisible = true;
         boolean hasButtonGroupButtons = buttonGroupVisible || buttonGroupCount == 1;
         expandButton.setVisible(buttonGroupCount > 1);
         updateButtonGroupState();
@@ -544,6 +577,7 @@ public abstract class BaseBarElement extends Element {
             return;
         }
         commentWrapped = Util.wrapText(comment, renderWidth - (COMMENT_PADDING_LEFT + getTextPaddingRight()), Engine.fontMetrics);
+        invalidateRenderCache();
     }
 
     protected abstract int getAdditionalRenderHeight();
@@ -607,12 +641,22 @@ public abstract class BaseBarElement extends Element {
         }
         int x = 0;
         int y = commentHeight + tagsHeight + buttonGroupHeight;
-        for (CucumberStepPart part : step.getParts()) {
-            part.wrapText(x, y);
-            x = part.endX;
-            y = part.endY;
+        if (step.hasLayout(Engine.fontMetrics)) {
+            step.moveLayout(y);
+            if (!step.getParts().isEmpty()) {
+                y = step.getLastPartBottom();
+            }
+        } else {
+            int startY = y;
+            for (CucumberStepPart part : step.getParts()) {
+                part.wrapText(x, y);
+                x = part.endX;
+                y = part.endY;
+            }
+            step.setLayout(Engine.fontMetrics, startY);
         }
         step.setTextDirty(false);
+        invalidateRenderCache();
         return y + Engine.fontMetrics.getHeight();
     }
 
@@ -777,7 +821,11 @@ public abstract class BaseBarElement extends Element {
     public abstract boolean isFoldable();
 
     public void foldFadeAnimation(float alpha, boolean animate) {
+        ElementIndex.invalidate();
         for (Element child : children) {
+            if (alpha <= 0.0f && child instanceof BaseBarElement) {
+                ((BaseBarElement) child).releaseRenderCache();
+            }
             if (!child.visible) {
                 child.animation.alphaAnimation.setAlpha(0.0f);
                 continue;
@@ -1043,10 +1091,12 @@ public abstract class BaseBarElement extends Element {
 
     protected void renderBefore(Graphics2D g) {
         if (!animation.alphaAnimation.isVisible()) {
+            releaseRenderCache();
             return;
         }
         if (animation.moveAnimation.renderX > Engine.windowWidth || animation.moveAnimation.renderY > DesignerEngine.canvasHeight ||
             animation.moveAnimation.renderX + renderWidth < 0 || animation.moveAnimation.renderY + renderHeight < 0) {
+            releaseRenderCache();
             return;
         }
         updateUnfoldWhenDraggingState();
@@ -1058,19 +1108,124 @@ public abstract class BaseBarElement extends Element {
     }
 
     private void renderElement(Graphics2D canvas) {
-        ImageTemplate imageTemplate = RenderOptimizer.getImageTemplate(renderWidth + SHADOW_SIZE, renderHeight + SHADOW_SIZE);
-        BufferedImage image = imageTemplate.image;
-        Graphics2D g = imageTemplate.graphics;
-        g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC, animation.alphaAnimation.getAlpha()));
+        FrameProfiler.elementsDrawn++;
         setBackgroundColorAccordingToState();
+        ImageTemplate imageTemplate;
+        if (!shouldUseRenderCache()) {
+            releaseRenderCache();
+            imageTemplate = RenderOptimizer.getImageTemplate(renderWidth + SHADOW_SIZE, renderHeight + SHADOW_SIZE);
+            paintElement(imageTemplate.graphics);
+        } else if (isRenderCacheValid()) {
+            imageTemplate = renderCache;
+            updatePartsTouchState();
+        } else {
+            imageTemplate = getRenderCache();
+            storeRenderCacheState();
+            paintElement(imageTemplate.graphics);
+        }
+        imageTemplate.draw(canvas, (int) animation.moveAnimation.renderX, (int) animation.moveAnimation.renderY);
+        drawButtons(canvas);
+    }
+
+    private void paintElement(Graphics2D g) {
+        FrameProfiler.elementsPainted++;
+        FrameProfiler.PAINT_ELEMENTS.begin();
+        g.setComposite(getPaintComposite());
         clear(g);
         drawBar(g);
         drawComment(g);
         drawText(g);
         drawTags(g);
         drawAdditionals(g);
-        canvas.drawImage(image, (int) animation.moveAnimation.renderX, (int) animation.moveAnimation.renderY, null);
-        drawButtons(canvas);
+        FrameProfiler.PAINT_ELEMENTS.end();
+    }
+
+    private AlphaComposite getPaintComposite() {
+        float alpha = animation.alphaAnimation.getAlpha();
+        if (paintComposite == null || paintComposite.getAlpha() != alpha) {
+            paintComposite = AlphaComposite.getInstance(AlphaComposite.SRC, alpha);
+        }
+        return paintComposite;
+    }
+
+    public void invalidateRenderCache() {
+        renderVersion++;
+    }
+
+    private void releaseRenderCache() {
+        if (renderCache == null) {
+            return;
+        }
+        renderCache.graphics.dispose();
+        renderCache = null;
+        renderCacheVersion = -1;
+    }
+
+    private static boolean isRenderCacheEnabled() {
+        if (renderCacheEnabled == null) {
+            renderCacheEnabled = !"false".equalsIgnoreCase(ConfigurationManager.get("elementRenderCache"));
+        }
+        return renderCacheEnabled;
+    }
+
+    private boolean shouldUseRenderCache() {
+        return isRenderCacheEnabled() &&
+               !animation.alphaAnimation.isFading &&
+               !animation.colorAnimation.isFading &&
+               !(Player.isRunning() && isRunnable() && isRunning()) &&
+               !hasDynamicAdditionals();
+    }
+
+    protected boolean hasDynamicAdditionals() {
+        return false;
+    }
+
+    private ImageTemplate getRenderCache() {
+        int width = renderWidth + SHADOW_SIZE;
+        int height = renderHeight + SHADOW_SIZE;
+        if (renderCache != null && renderCache.image.getWidth() == width && renderCache.image.getHeight() == height) {
+            return renderCache;
+        }
+        releaseRenderCache();
+        renderCache = RenderOptimizer.createUnsharedImageTemplate(width, height);
+        return renderCache;
+    }
+
+    private boolean isRenderCacheValid() {
+        return renderCache != null &&
+               renderCacheVersion == renderVersion &&
+               renderCacheWidth == renderWidth &&
+               renderCacheHeight == renderHeight &&
+               renderCacheColor == animation.colorAnimation.getColor().getRGB() &&
+               renderCacheAlpha == animation.alphaAnimation.getAlpha() &&
+               renderCacheHighlighted == isHighlighted() &&
+               renderCacheEditing == EditBox.isEditing(this) &&
+               renderCacheSearchMatch == isSearchMatch() &&
+               renderCacheTagsVisible == shouldRenderTags() &&
+               renderCacheRootType == rootType &&
+               renderCacheColorScheme == DesignerEngine.colorScheme &&
+               renderCacheStep == step &&
+               renderCacheTags == tags.toString() &&
+               renderCacheComment == commentWrapped &&
+               renderCacheTouchedPart == getTouchedPart();
+    }
+
+    private void storeRenderCacheState() {
+        renderCacheVersion = renderVersion;
+        renderCacheWidth = renderWidth;
+        renderCacheHeight = renderHeight;
+        renderCacheColor = animation.colorAnimation.getColor().getRGB();
+        renderCacheAlpha = animation.alphaAnimation.getAlpha();
+        renderCacheHighlighted = isHighlighted();
+        renderCacheEditing = EditBox.isEditing(this);
+        renderCacheSearchMatch = isSearchMatch();
+        renderCacheTagsVisible = shouldRenderTags();
+        renderCacheRootType = rootType;
+        renderCacheColorScheme = DesignerEngine.colorScheme;
+        renderCacheStep = step;
+        renderCacheTags = tags.toString();
+        renderCacheComment = commentWrapped;
+        renderCacheTouchedPart = getTouchedPart();
     }
 
     protected abstract void drawAdditionals(Graphics2D g);
@@ -1143,6 +1298,7 @@ public abstract class BaseBarElement extends Element {
         boolean renderedBorder = false;
         renderedBorder |= renderPlaying(g);
         renderedBorder |= renderEditing(g);
+        renderedBorder |= renderSearchMatch(g);
         int space = renderedBorder ? 1 : 0;
         GuiUtil.drawBarFilling(g, x + 1 + space, y + 1 + space, width - 1 - (space * 2), height - 1 - (space * 2), BAR_ROUNDING, animation.colorAnimation.getColor());
         if (buttonGroupVisible) {
@@ -1152,6 +1308,7 @@ public abstract class BaseBarElement extends Element {
 
     public void clearRunStatus() {
         playResult = new PlayResult();
+        invalidateRenderCache();
         super.clearRunStatus();
     }
 
@@ -1164,6 +1321,7 @@ public abstract class BaseBarElement extends Element {
             return;
         }
         this.playResult = playResult;
+        invalidateRenderCache();
         animation.colorAnimation.setColor(getBackgroundColorAccordingToState(), Animation.FADE_SPEED_CHANGE_PLAY_COLOR_STATE);
     }
 
@@ -1244,6 +1402,14 @@ public abstract class BaseBarElement extends Element {
         return true;
     }
 
+    private boolean renderSearchMatch(Graphics2D g) {
+        if (!isSearchMatch() || EditBox.isEditing(this)) {
+            return false;
+        }
+        renderBorder(g, COLOR_BORDER_SEARCH_MATCH, BORDER_STROKE_WIDTH);
+        return true;
+    }
+
     private void renderBorder(Graphics2D g, Color color, float width) {
         GuiUtil.drawBorder(g, 1, 1 + buttonGroupHeight, renderWidth - 3, renderHeight - 3 - buttonGroupHeight, BAR_ROUNDING, color, width);
         if (buttonGroupVisible) {
@@ -1321,6 +1487,21 @@ public abstract class BaseBarElement extends Element {
         g.setFont(Engine.FONT_DEFAULT);
     }
 
+    private void updatePartsTouchState() {
+        for (CucumberStepPart part : step.getParts()) {
+            if (!part.render || part.wrappedText == null) {
+                continue;
+            }
+            int y = part.startY;
+            int drawX = part.startX + getTextPaddingLeft();
+            for (String text : part.wrappedText) {
+                updatePartTouchState(part, text, (int) animation.moveAnimation.renderX + drawX, (int) animation.moveAnimation.renderY + y + TEXT_PADDING_VERTICAL - 3);
+                drawX = getTextPaddingLeft();
+                y += Engine.fontMetrics.getHeight();
+            }
+        }
+    }
+
     private void drawTags(Graphics2D g) {
         if (!shouldRenderTags() || (!isHighlighted() && type == TYPE_FEATURE)) {
             return;
@@ -26,6 +26,7 @@
 package com.trollsahead.qcumberless.gui.elements;
 
 import com.trollsahead.qcumberless.engine.DesignerEngine;
+import com.trollsahead.qcumberless.engine.Engine;
 import com.trollsahead.qcumberless.gui.Animation;
 import com.trollsahead.qcumberless.gui.CumberlessMouseListener;
 import com.trollsahead.qcumberless.model.FeatureBuildState;
@@ -70,11 +71,18 @@ public abstract class Element {
     public List<Element> children = new ArrayList<Element>();
 
     private boolean highlighted = false;
+    private boolean searchMatch = false;
+
+    private ElementIndex ownElementIndex = null;
+    ElementIndex elementIndex = null;
+    int elementIndexRecording = -1;
+    int elementIndexPosition = -1;
 
     public Element() {
     }
 
     public void addChild(Element element) {
+        ElementIndex.invalidate();
         children.add(element);
         element.groupParent = this;
         if (rootType == ROOT_STEP_DEFINITIONS) {
@@ -83,6 +91,7 @@ public abstract class Element {
     }
 
     public void addChild(Element element, int index) {
+        ElementIndex.invalidate();
         children.add(index, element);
         element.groupParent = this;
     }
@@ -91,6 +100,7 @@ public abstract class Element {
         if (element == null) {
             return;
         }
+        ElementIndex.invalidate();
         if (children.contains(element)) {
             if (this == DesignerEngine.stepsRoot || this instanceof GroupingElement) {
                 Element stepDefinitionElement = element.duplicate();
@@ -152,37 +162,57 @@ public abstract class Element {
     public void update(long time) {
         animation.update(isBeingDragged());
         updateSelf(time);
-        for (Element child : children) {
-            child.update(time);
+        for (int i = 0; i < children.size(); i++) {
+            Element child = children.get(i);
+            if (child.animation.alphaAnimation.isVisible()) {
+                child.update(time);
+            }
         }
     }
 
     protected abstract void updateSelf(long time);
 
     public void render(Graphics2D g) {
+        if (ownElementIndex == null) {
+            ownElementIndex = new ElementIndex();
+        }
         if (!animation.alphaAnimation.isVisible()) {
+            ownElementIndex.abortRecording();
             groupHeight = 0;
             return;
         }
-        render(g, false, false);
+        ownElementIndex.beginRecording();
+        render(g, false, false, ownElementIndex);
+        ownElementIndex.endRecording();
         render(g, true, false);
     }
 
     public void render(Graphics2D g, boolean dragHighlightMode, boolean isParentDragged) {
+        render(g, dragHighlightMode, isParentDragged, null);
+    }
+
+    private void render(Graphics2D g, boolean dragHighlightMode, boolean isParentDragged, ElementIndex index) {
         if (visible) {
             calculateRenderPosition(g);
         }
+        int indexPosition = index != null ? index.record(this) : -1;
         boolean isDraggedOrHighlighted = isHighlighted() || isParentDragged || isBeingDragged();
         if (dragHighlightMode == isDraggedOrHighlighted) {
             renderBefore(g);
         }
         int selfHeight = groupHeight;
-        for (Element child : children) {
+        for (int i = 0; i < children.size(); i++) {
+            Element child = children.get(i);
             if (child.animation.alphaAnimation.isVisible()) {
-                child.render(g, dragHighlightMode, isParentDragged || isBeingDragged());
+                child.render(g, dragHighlightMode, isParentDragged || isBeingDragged(), index);
                 groupHeight += child.groupHeight;
+            } else if (index != null) {
+                index.skipSubtree(child);
             }
         }
+        if (index != null) {
+            index.endSubtree(indexPosition);
+        }
         if (isSelfOrParentFolded()) {
             groupHeight = selfHeight;
         }
@@ -195,9 +225,13 @@ public abstract class Element {
     }
 
     public void renderHints(Graphics2D g) {
+        if (elementIndex != null && elementIndex.canRenderHints(this)) {
+            elementIndex.renderHints(this, g, 0, 0, Engine.windowWidth, Engine.windowHeight);
+            return;
+        }
         renderHintsInternal(g);
-        for (Element child : children) {
-            child.renderHints(g);
+        for (int i = 0; i < children.size(); i++) {
+            children.get(i).renderHints(g);
         }
     }
 
@@ -226,11 +260,18 @@ public abstract class Element {
     }
 
     public Element findElement(int x, int y) {
-        if (isInsideRenderRect(x, y) && !(this instanceof RootElement) && visible) {
+        if (elementIndex != null && elementIndex.canFindElement(this)) {
+            return elementIndex.findElement(this, x, y);
+        }
+        return findElementInTree(x, y);
+    }
+
+    private Element findElementInTree(int x, int y) {
+        if (isFindableAt(x, y)) {
             return this;
         } else {
             for (Element child : children) {
-                Element foundElement = child.findElement(x, y);
+                Element foundElement = child.findElementInTree(x, y);
                 if (foundElement != null) {
                     return foundElement;
                 }
@@ -239,6 +280,10 @@ public abstract class Element {
         }
     }
 
+    boolean isFindableAt(int x, int y) {
+        return isInsideRenderRect(x, y) && !(this instanceof RootElement) && visible;
+    }
+
     public Element findElementRealPosition(int x, int y) {
         if (isInsideRealRect(x, y) && !(this instanceof RootElement) && visible) {
             return this;
@@ -345,13 +390,23 @@ public abstract class Element {
         return highlighted;
     }
 
+    public void setSearchMatch(boolean searchMatch) {
+        this.searchMatch = searchMatch;
+    }
+
+    public boolean isSearchMatch() {
+        return searchMatch;
+    }
+
     public void startDrag(boolean isControlDown) {
+        ElementIndex.invalidate();
         isDragged = true;
         dragOffsetX = (int) animation.moveAnimation.renderX - CumberlessMouseListener.mouseX;
         dragOffsetY = (int) animation.moveAnimation.renderY - CumberlessMouseListener.mouseY;
     }
 
     public void endDrag() {
+        ElementIndex.invalidate();
         isDragged = false;
     }
 
@@ -372,8 +427,8 @@ public abstract class Element {
             return;
         }
         this.shouldStickToParentRenderPosition = shouldStick;
-        for (Element child : children) {
-            child.stickToParentRenderPosition(shouldStick);
+        for (int i = 0; i < children.size(); i++) {
+            children.get(i).stickToParentRenderPosition(shouldStick);
         }
     }
 
@@ -420,6 +475,7 @@ public abstract class Element {
             return;
         }
         visible = true;
+        ElementIndex.invalidate();
         if (isParentFolded()) {
             return;
         }
@@ -438,6 +494,7 @@ public abstract class Element {
             return;
         }
         visible = false;
+        ElementIndex.invalidate();
         if (isParentFolded()) {
             return;
         }
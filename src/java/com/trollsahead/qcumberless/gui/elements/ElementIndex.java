@@ -0,0 +1,242 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.trollsahead.qcumberless.gui.elements;
+
+import java.awt.*;
+import java.util.Arrays;
+
+public class ElementIndex {
+    private static final int INITIAL_CAPACITY = 256;
+
+    private static volatile int modificationCount = 0;
+
+    private Element[] elements = new Element[INITIAL_CAPACITY];
+    private int[] left = new int[INITIAL_CAPACITY];
+    private int[] top = new int[INITIAL_CAPACITY];
+    private int[] right = new int[INITIAL_CAPACITY];
+    private int[] bottom = new int[INITIAL_CAPACITY];
+    private int[] subtreeEnd = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    private long[] sortedByTop = new long[0];
+    private int[] maxBottom = new int[0];
+    private int[] hintBuffer = new int[INITIAL_CAPACITY];
+
+    private int recordingCount = 0;
+    private int recordedModificationCount = -1;
+    private boolean complete = false;
+    private boolean stable = false;
+    private boolean changed = true;
+    private boolean recording = false;
+
+    public static void invalidate() {
+        modificationCount++;
+    }
+
+    public void beginRecording() {
+        recordingCount++;
+        recordedModificationCount = modificationCount;
+        size = 0;
+        complete = true;
+        stable = true;
+        recording = true;
+    }
+
+    public void endRecording() {
+        recording = false;
+        if (changed || sortedByTop.length != size) {
+            sort();
+            changed = false;
+        }
+    }
+
+    public void abortRecording() {
+        recordingCount++;
+        size = 0;
+        complete = false;
+        recording = false;
+        changed = true;
+    }
+
+    int record(Element element) {
+        ensureCapacity(size + 1);
+        int x1 = (int) Math.floor(element.animation.moveAnimation.renderX);
+        int y1 = (int) Math.floor(element.animation.moveAnimation.renderY);
+        int x2 = (int) Math.ceil(element.animation.moveAnimation.renderX + element.renderWidth);
+        int y2 = (int) Math.ceil(element.animation.moveAnimation.renderY + element.renderHeight);
+        if (elements[size] != element || left[size] != x1 || top[size] != y1 || right[size] != x2 || bottom[size] != y2) {
+            elements[size] = element;
+            left[size] = x1;
+            top[size] = y1;
+            right[size] = x2;
+            bottom[size] = y2;
+            changed = true;
+        }
+        if (element.animation.moveAnimation.isMoving() || element.animation.sizeAnimation.isResizing || element.isBeingDragged()) {
+            stable = false;
+        }
+        element.elementIndex = this;
+        element.elementIndexRecording = recordingCount;
+        element.elementIndexPosition = size;
+        return size++;
+    }
+
+    void endSubtree(int position) {
+        if (subtreeEnd[position] != size - 1) {
+            subtreeEnd[position] = size - 1;
+            changed = true;
+        }
+    }
+
+    void skipSubtree(Element element) {
+        if (element.isParentFolded()) {
+            return;
+        }
+        if (!element.visible && element.folded) {
+            return;
+        }
+        complete = false;
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    private boolean isUsable(Element scope) {
+        return !recording &&
+               complete &&
+               recordedModificationCount == modificationCount &&
+               scope.elementIndex == this &&
+               scope.elementIndexRecording == recordingCount;
+    }
+
+    boolean canFindElement(Element scope) {
+        return stable && isUsable(scope);
+    }
+
+    boolean canRenderHints(Element scope) {
+        return isUsable(scope);
+    }
+
+    Element findElement(Element scope, int x, int y) {
+        int from = scope.elementIndexPosition;
+        int to = subtreeEnd[from];
+        int found = -1;
+        for (int i = lastWithTopAtMost(y); i >= 0 && maxBottom[i] >= y; i--) {
+            int position = (int) sortedByTop[i];
+            if (position < from || position > to || (found != -1 && position > found)) {
+                continue;
+            }
+            if (x < left[position] || x > right[position] || y > bottom[position]) {
+                continue;
+            }
+            if (elements[position].isFindableAt(x, y)) {
+                found = position;
+            }
+        }
+        return found != -1 ? elements[found] : null;
+    }
+
+    void renderHints(Element scope, Graphics2D g, int x1, int y1, int x2, int y2) {
+        int from = scope.elementIndexPosition;
+        int to = subtreeEnd[from];
+        int count = 0;
+        for (int i = lastWithTopAtMost(y2); i >= 0 && maxBottom[i] >= y1; i--) {
+            int position = (int) sortedByTop[i];
+            if (position < from || position > to || bottom[position] < y1 || right[position] < x1 || left[position] > x2) {
+                continue;
+            }
+            if (count == hintBuffer.length) {
+                hintBuffer = grow(hintBuffer, count * 2);
+            }
+            hintBuffer[count++] = position;
+        }
+        Arrays.sort(hintBuffer, 0, count);
+        for (int i = 0; i < count; i++) {
+            elements[hintBuffer[i]].renderHintsInternal(g);
+        }
+    }
+
+    private int lastWithTopAtMost(int y) {
+        int low = 0;
+        int high = sortedByTop.length - 1;
+        int result = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if ((int) (sortedByTop[middle] >> 32) <= y) {
+                result = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return result;
+    }
+
+    private void sort() {
+        if (sortedByTop.length != size) {
+            sortedByTop = new long[size];
+            maxBottom = new int[size];
+        }
+        for (int i = 0; i < size; i++) {
+            sortedByTop[i] = ((long) top[i] << 32) | i;
+        }
+        Arrays.sort(sortedByTop);
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, bottom[(int) sortedByTop[i]]);
+            maxBottom[i] = max;
+        }
+        for (int i = size; i < elements.length && elements[i] != null; i++) {
+            elements[i] = null;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= elements.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, elements.length * 2);
+        Element[] newElements = new Element[newCapacity];
+        System.arraycopy(elements, 0, newElements, 0, elements.length);
+        elements = newElements;
+        left = grow(left, newCapacity);
+        top = grow(top, newCapacity);
+        right = grow(right, newCapacity);
+        bottom = grow(bottom, newCapacity);
+        subtreeEnd = grow(subtreeEnd, newCapacity);
+    }
+
+    private static int[] grow(int[] array, int capacity) {
+        int[] newArray = new int[capacity];
+        System.arraycopy(array, 0, newArray, 0, array.length);
+        return newArray;
+    }
+
+    public int size() {
+        return size;
+    }
+}
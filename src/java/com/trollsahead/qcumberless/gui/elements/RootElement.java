@@ -29,6 +29,7 @@ import com.trollsahead.qcumberless.engine.DesignerEngine;
 import com.trollsahead.qcumberless.gui.Animation;
 import com.trollsahead.qcumberless.gui.ButtonBar;
 import com.trollsahead.qcumberless.gui.CumberlessMouseListener;
+import com.trollsahead.qcumberless.gui.RenderOptimizer;
 import com.trollsahead.qcumberless.model.FeatureBuildState;
 import com.trollsahead.qcumberless.model.PlayResult;
 
@@ -37,6 +38,8 @@ import java.io.File;
 import java.util.HashSet;
 import java.util.Set;
 
+import static com.trollsahead.qcumberless.gui.RenderOptimizer.ImageTemplate;
+
 public class RootElement extends Element {
     public static final int TYPE_ROOT = -1;
 
@@ -44,6 +47,7 @@ public class RootElement extends Element {
 
     private static final Color COLOR_BG_NORMAL    = new Color(1.0f, 1.0f, 1.0f, 0.5f);
     private static final Color COLOR_BG_HIGHLIGHT = new Color(1.0f, 1.0f, 1.0f, 0.6f);
+    private static final Color COLOR_BG_TRACK     = new Color(0.0f, 0.0f, 0.0f, 0.5f);
 
     private static final int SCROLLBAR_WIDTH = 10;
     private static final int SCROLLBAR_PADDING_HORIZONTAL = 3;
@@ -65,6 +69,10 @@ public class RootElement extends Element {
 
     private boolean isDraggingScrollbar = false;
 
+    private ImageTemplate scrollbarTrack = null;
+    private ImageTemplate scrollbarThumb = null;
+    private boolean scrollbarThumbTouched = false;
+
     private int cachedGroupHeight = 1;
     public boolean isLoaded = false;
 
@@ -202,11 +210,31 @@ public class RootElement extends Element {
             }
         }
 
-        g.setColor(new Color(0.0f, 0.0f, 0.0f, 0.5f));
-        g.fillRoundRect(scrollbarX, SCROLLBAR_PADDING_VERTICAL, SCROLLBAR_WIDTH, scrollbarMaxHeight, SCROLLBAR_ROUNDING, SCROLLBAR_ROUNDING);
+        if (scrollbarMaxHeight > 0) {
+            if (scrollbarTrack == null || scrollbarTrack.height != scrollbarMaxHeight) {
+                scrollbarTrack = createScrollbarImage(scrollbarTrack, SCROLLBAR_WIDTH, scrollbarMaxHeight, COLOR_BG_TRACK);
+            }
+            g.drawImage(scrollbarTrack.image, scrollbarX, SCROLLBAR_PADDING_VERTICAL, null);
+        }
 
-        g.setColor(isScrollbarTouched() ? COLOR_BG_HIGHLIGHT : COLOR_BG_NORMAL);
-        g.fillRoundRect(scrollbarX + 1, SCROLLBAR_PADDING_VERTICAL + scrollbarY + 1, SCROLLBAR_WIDTH - 2, scrollbarHeight - 2, SCROLLBAR_ROUNDING, SCROLLBAR_ROUNDING);
+        boolean touched = isScrollbarTouched();
+        if (scrollbarHeight - 2 > 0) {
+            if (scrollbarThumb == null || scrollbarThumb.height != scrollbarHeight - 2 || scrollbarThumbTouched != touched) {
+                scrollbarThumb = createScrollbarImage(scrollbarThumb, SCROLLBAR_WIDTH - 2, scrollbarHeight - 2, touched ? COLOR_BG_HIGHLIGHT : COLOR_BG_NORMAL);
+                scrollbarThumbTouched = touched;
+            }
+            g.drawImage(scrollbarThumb.image, scrollbarX + 1, SCROLLBAR_PADDING_VERTICAL + scrollbarY + 1, null);
+        }
+    }
+
+    private ImageTemplate createScrollbarImage(ImageTemplate oldTemplate, int width, int height, Color color) {
+        if (oldTemplate != null) {
+            oldTemplate.graphics.dispose();
+        }
+        ImageTemplate template = RenderOptimizer.createUnsharedImageTemplate(width, height);
+        template.graphics.setColor(color);
+        template.graphics.fillRoundRect(0, 0, width, height, SCROLLBAR_ROUNDING, SCROLLBAR_ROUNDING);
+        return template;
     }
 
     protected void calculateRenderPosition(Graphics2D g) {
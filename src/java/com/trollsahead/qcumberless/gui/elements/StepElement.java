@@ -26,6 +26,7 @@
 package com.trollsahead.qcumberless.gui.elements;
 
 import com.trollsahead.qcumberless.engine.Engine;
+import com.trollsahead.qcumberless.engine.Player;
 import com.trollsahead.qcumberless.gui.*;
 import com.trollsahead.qcumberless.gui.Button;
 import com.trollsahead.qcumberless.model.Constants;
@@ -104,6 +105,10 @@ public class StepElement extends BaseBarElement {
         }
     }
 
+    protected boolean hasDynamicAdditionals() {
+        return table != null && (isHighlighted() || Player.isRunning());
+    }
+
     protected boolean isAttachable(int type) {
         return false;
     }
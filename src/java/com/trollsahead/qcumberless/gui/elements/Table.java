@@ -238,6 +238,7 @@ public class Table {
         }
         rowHeight = Engine.fontMetrics.getHeight() + (CELL_PADDING_VERTICAL * 2);
         height = rows * rowHeight;
+        parent.invalidateRenderCache();
     }
 
     public boolean click() {
@@ -340,14 +341,17 @@ public class Table {
 
     public void setNotYetPlayed(int row) {
         this.playResults[row] = new PlayResult(PlayResult.State.NOT_PLAYED);
+        parent.invalidateRenderCache();
     }
 
     public void setSuccess(int row) {
         this.playResults[row] = new PlayResult(PlayResult.State.SUCCESS);
+        parent.invalidateRenderCache();
     }
 
     public void setFailed(int row, String errorMessage) {
         this.playResults[row] = new PlayResult(PlayResult.State.FAILED, errorMessage);
+        parent.invalidateRenderCache();
     }
 
     public void clearRunStatus() {
@@ -26,30 +26,37 @@
 package com.trollsahead.qcumberless.model;
 
 import com.trollsahead.qcumberless.device.Device;
-import com.trollsahead.qcumberless.engine.Engine;
+import com.trollsahead.qcumberless.engine.FrameScheduler;
+import com.trollsahead.qcumberless.engine.LockStatistics;
 import com.trollsahead.qcumberless.gui.elements.BaseBarElement;
+import com.trollsahead.qcumberless.util.ConfigurationManager;
 import com.trollsahead.qcumberless.util.FileUtil;
 import com.trollsahead.qcumberless.util.Util;
 
 import java.awt.*;
-import java.io.BufferedWriter;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
-import java.io.OutputStreamWriter;
+import java.io.OutputStream;
 import java.util.Date;
-import java.util.LinkedList;
 import java.util.List;
 
 public class ConsoleOutput {
-    private List<LogLine> log;
-    private List<LogLine> textWrappedLog;
+    private static final int DEFAULT_QUEUE_CAPACITY = 100000;
+    private static final int MAX_LINES_PER_DRAIN = 20000;
+
+    private final Object lock = new Object();
+
+    private final LogQueue queue = new LogQueue(getQueueCapacity());
+    private long reportedDropped = 0;
+
+    private LogLineStore log;
+    private LogSearchIndex searchIndex;
+    private WrappedLogIndex textWrappedLog = null;
 
-    private int textWrapWidth = -1;
-    private FontMetrics textWrapMetrics = null;
-    
     public ConsoleOutput() {
-        log = new LinkedList<LogLine>();
-        textWrappedLog = new LinkedList<LogLine>();
+        log = new LogLineStore();
+        searchIndex = new LogSearchIndex();
     }
 
     public void appendLog(String line) {
@@ -60,68 +67,164 @@ public class ConsoleOutput {
         if (Util.isEmpty(line)) {
             return;
         }
-        line = Util.removePostfixedNewline(line);
-        synchronized (Engine.DATA_LOCK) {
-            for (String s : line.split("\n")) {
-                log.add(new LogLine(s, element));
-                textWrappedLog.addAll(wrapLine(new LogLine(s, element)));
+        for (String s : Util.removePostfixedNewline(line).split("\n")) {
+            if (queue.offer(new LogLine(s, element)) == 1) {
+                FrameScheduler.requestFrame();
             }
         }
     }
 
+    public void drainLog() {
+        long lockRequestTime = System.nanoTime();
+        synchronized (lock) {
+            LockStatistics.LOG.record(System.nanoTime() - lockRequestTime);
+            drainLog(MAX_LINES_PER_DRAIN);
+        }
+        if (queue.getDepth() > 0) {
+            FrameScheduler.requestFrame();
+        }
+    }
+
+    private void drainLog(int maxLines) {
+        LogLine logLine;
+        for (int i = 0; i < maxLines && (logLine = queue.poll()) != null; i++) {
+            addLine(logLine);
+        }
+        long dropped = queue.getDropped();
+        if (dropped != reportedDropped) {
+            addLine(new LogLine("[" + (dropped - reportedDropped) + " log lines dropped]", null));
+            reportedDropped = dropped;
+        }
+    }
+
+    private void addLine(LogLine logLine) {
+        log.add(logLine);
+        searchIndex.add(logLine.log);
+        searchIndex.dropBefore(log.getFirstMemoryLine());
+    }
+
     public List<LogLine> getLog() {
-        return log;
+        synchronized (lock) {
+            drainLog(Integer.MAX_VALUE);
+            return log.snapshot();
+        }
+    }
+
+    public int getTextWrappedRows(int wrapWidth, FontMetrics fontMetrics, int rowsFromBottom, LogLine[] rows) {
+        return getTextWrappedRows(wrapWidth, fontMetrics, rowsFromBottom, rows, null);
+    }
+
+    public int getTextWrappedRows(int wrapWidth, FontMetrics fontMetrics, int rowsFromBottom, LogLine[] rows, int[] rowLines) {
+        synchronized (lock) {
+            return getTextWrappedLog(wrapWidth, fontMetrics).fill(log, rowsFromBottom, rows, rowLines);
+        }
     }
 
-    public List<LogLine> getTextWrappedLog(int wrapWidth, FontMetrics fontMetrics) {
-        if (textWrapWidth != wrapWidth || fontMetrics != textWrapMetrics || textWrappedLog == null) {
-            textWrapMetrics = fontMetrics;
-            textWrapWidth = wrapWidth;
-            wrapText();
+    public int getTextWrappedRowsFrom(int wrapWidth, FontMetrics fontMetrics, int line) {
+        synchronized (lock) {
+            return getTextWrappedLog(wrapWidth, fontMetrics).getRowsFrom(log, line);
+        }
+    }
+
+    public int getMaxTextWrappedScroll(int wrapWidth, FontMetrics fontMetrics, int visibleRows, int rowsFromBottom) {
+        synchronized (lock) {
+            return getTextWrappedLog(wrapWidth, fontMetrics).getMaxScroll(log, visibleRows, rowsFromBottom);
+        }
+    }
+
+    private WrappedLogIndex getTextWrappedLog(int wrapWidth, FontMetrics fontMetrics) {
+        if (textWrappedLog == null || !textWrappedLog.matches(wrapWidth, fontMetrics)) {
+            textWrappedLog = new WrappedLogIndex(wrapWidth, fontMetrics, log.size());
         }
         return textWrappedLog;
     }
 
-    private void wrapText() {
-        textWrappedLog = new LinkedList<LogLine>();
-        for (LogLine logLine : log) {
-            textWrappedLog.addAll(wrapLine(logLine));
+    public void clearLog() {
+        synchronized (lock) {
+            queue.clear();
+            reportedDropped = queue.getDropped();
+            log.close();
+            log = new LogLineStore();
+            searchIndex = new LogSearchIndex();
+            textWrappedLog = null;
+        }
+    }
+
+    public LogLine getLine(int line) {
+        synchronized (lock) {
+            return line >= 0 && line < log.size() ? log.get(line) : null;
         }
     }
 
-    private List<LogLine> wrapLine(LogLine logLine) {
-        if (Util.isEmpty(logLine.log)) {
-            return new LinkedList<LogLine>();
+    public int findLine(String query, int fromLine, boolean forward) {
+        if (!LogSearchIndex.isSearchable(query)) {
+            return -1;
         }
-        LinkedList<LogLine> list = new LinkedList<LogLine>();
-        if (textWrapWidth == -1) {
-            list.add(logLine);
-        } else {
-            List<String> wrappedLine = Util.wrapText(logLine.log, textWrapWidth, textWrapMetrics);
-            for (String s : wrappedLine) {
-                list.add(new LogLine(s, logLine.element));
+        int[] trigrams = LogSearchIndex.getTrigrams(query);
+        int step = forward ? 1 : -1;
+        int line;
+        synchronized (lock) {
+            line = Math.max(-1, Math.min(log.size(), fromLine)) + step;
+        }
+        while (!Thread.currentThread().isInterrupted()) {
+            synchronized (lock) {
+                if (line < 0 || line >= log.size()) {
+                    return -1;
+                }
+                int chunk = line / LogSearchIndex.CHUNK_LINES;
+                int end = forward ? Math.min(log.size(), (chunk + 1) * LogSearchIndex.CHUNK_LINES) : chunk * LogSearchIndex.CHUNK_LINES - 1;
+                if (!searchIndex.mayContain(chunk, trigrams)) {
+                    line = end;
+                    continue;
+                }
+                for (; line != end; line += step) {
+                    if (LogSearchIndex.containsIgnoreCase(log.get(line).log, query)) {
+                        return line;
+                    }
+                }
             }
         }
-        return list;
+        return -1;
     }
 
-    public void clearLog() {
-        synchronized (Engine.DATA_LOCK) {
-            log = new LinkedList<LogLine>();
-            textWrappedLog = new LinkedList<LogLine>();
+    public String getStatistics() {
+        return "ingested " + queue.getIngested() + ", dropped " + queue.getDropped() + ", queued " + queue.getDepth();
+    }
+
+    private static int getQueueCapacity() {
+        try {
+            return Integer.parseInt(ConfigurationManager.get("consoleQueueCapacity").trim());
+        } catch (Exception e) {
+            return DEFAULT_QUEUE_CAPACITY;
         }
     }
 
     public void exportLog(String filename, StringBuilder preample) {
-        BufferedWriter out = null;
+        exportLog(filename, preample, false);
+    }
+
+    public void exportLog(String filename, StringBuilder preample, boolean writeSearchIndex) {
+        OutputStream out = null;
         try {
             File file = new File(filename);
-            out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF8"));
+            out = new BufferedOutputStream(new FileOutputStream(file));
+            long offset = 0;
             if (!Util.isEmpty(preample)) {
-                out.write(preample.toString());
+                byte[] bytes = preample.toString().getBytes("UTF8");
+                out.write(bytes);
+                offset += bytes.length;
+            }
+            LogSearchIndex index = writeSearchIndex ? new LogSearchIndex() : null;
+            for (LogLine logLine : getLog()) {
+                if (index != null) {
+                    index.add(logLine.log, offset);
+                }
+                byte[] bytes = (logLine.log + "\n").getBytes("UTF8");
+                out.write(bytes);
+                offset += bytes.length;
             }
-            for (LogLine logLine : log) {
-                out.write(logLine.log + "\n");
+            if (index != null) {
+                index.write(LogSearchIndex.getIndexFile(file));
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -132,7 +235,7 @@ public class ConsoleOutput {
 
     public StringBuilder getPlainTextLog() {
         StringBuilder sb = new StringBuilder();
-        for (LogLine logLine : log) {
+        for (LogLine logLine : getLog()) {
             sb.append(logLine.log).append("\n");
         }
         return sb;
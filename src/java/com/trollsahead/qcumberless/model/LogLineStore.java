@@ -0,0 +1,325 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.trollsahead.qcumberless.model;
+
+import com.trollsahead.qcumberless.gui.elements.BaseBarElement;
+import com.trollsahead.qcumberless.util.ConfigurationManager;
+import com.trollsahead.qcumberless.util.FileUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.lang.ref.WeakReference;
+import java.util.AbstractList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+class LogLineStore {
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static final int LINE_OVERHEAD_BYTES = 64;
+    private static final int MAX_LOADED_CHUNKS = 8;
+
+    private static final int DEFAULT_MAX_LINES = 200000;
+    private static final long DEFAULT_MAX_BYTES = 32L * 1024L * 1024L;
+
+    private static final ConsoleOutput.LogLine EMPTY_LINE = new ConsoleOutput.LogLine("", null);
+
+    private static final ExecutorService spillWriter = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "Console spill writer");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final int maxLines;
+    private final long maxBytes;
+
+    private ConsoleOutput.LogLine[][] chunks = new ConsoleOutput.LogLine[16][];
+    private int size = 0;
+
+    private int memoryLines = 0;
+    private long memoryBytes = 0;
+    private int firstMemoryChunk = 0;
+
+    private File spillFile = null;
+    private RandomAccessFile spill = null;
+    private long spillLength = 0;
+    private long[] spillOffsets = new long[16];
+    private WeakReference<BaseBarElement>[][] spillElements = newElementChunks(16);
+    private boolean closed = false;
+    private volatile boolean spillFailed = false;
+
+    private final Map<Integer, ConsoleOutput.LogLine[]> loadedChunks = new LinkedHashMap<Integer, ConsoleOutput.LogLine[]>(MAX_LOADED_CHUNKS, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<Integer, ConsoleOutput.LogLine[]> eldest) {
+            return size() > MAX_LOADED_CHUNKS;
+        }
+    };
+
+    LogLineStore() {
+        this(getMaxLines(), getMaxBytes());
+    }
+
+    LogLineStore(int maxLines, long maxBytes) {
+        this.maxLines = Math.max(maxLines, CHUNK_SIZE * 2);
+        this.maxBytes = maxBytes;
+    }
+
+    void add(ConsoleOutput.LogLine logLine) {
+        int chunk = size >> CHUNK_SHIFT;
+        if (chunk == chunks.length) {
+            growChunks();
+        }
+        if (chunks[chunk] == null) {
+            chunks[chunk] = new ConsoleOutput.LogLine[CHUNK_SIZE];
+        }
+        chunks[chunk][size & CHUNK_MASK] = logLine;
+        size++;
+        memoryLines++;
+        memoryBytes += estimateBytes(logLine);
+        while ((memoryLines > maxLines || memoryBytes > maxBytes) && firstMemoryChunk < chunk && !spillFailed) {
+            scheduleSpill(firstMemoryChunk);
+            firstMemoryChunk++;
+        }
+    }
+
+    private synchronized void growChunks() {
+        ConsoleOutput.LogLine[][] newChunks = new ConsoleOutput.LogLine[chunks.length * 2][];
+        System.arraycopy(chunks, 0, newChunks, 0, chunks.length);
+        chunks = newChunks;
+    }
+
+    private void scheduleSpill(final int chunk) {
+        ConsoleOutput.LogLine[] lines = chunks[chunk];
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+            memoryBytes -= estimateBytes(lines[i]);
+        }
+        memoryLines -= CHUNK_SIZE;
+        spillWriter.execute(new Runnable() {
+            public void run() {
+                spillChunk(chunk);
+            }
+        });
+    }
+
+    int size() {
+        return size;
+    }
+
+    ConsoleOutput.LogLine get(int index) {
+        ConsoleOutput.LogLine[] chunk = chunks[index >> CHUNK_SHIFT];
+        if (chunk != null) {
+            return chunk[index & CHUNK_MASK];
+        }
+        return getSpilled(index);
+    }
+
+    int getMemoryLines() {
+        return memoryLines;
+    }
+
+    int getFirstMemoryLine() {
+        return firstMemoryChunk << CHUNK_SHIFT;
+    }
+
+    int getSpilledLines() {
+        return size - memoryLines;
+    }
+
+    List<ConsoleOutput.LogLine> snapshot() {
+        return new Snapshot(this, chunks, size);
+    }
+
+    synchronized void close() {
+        closed = true;
+        loadedChunks.clear();
+        FileUtil.close(spill);
+        spill = null;
+        if (spillFile != null) {
+            spillFile.delete();
+            spillFile = null;
+        }
+    }
+
+    private synchronized void spillChunk(int chunk) {
+        if (closed || spillFailed) {
+            return;
+        }
+        ConsoleOutput.LogLine[] lines = chunks[chunk];
+        try {
+            if (spill == null) {
+                spillFile = File.createTempFile("qcumberless-console", ".log");
+                spillFile.deleteOnExit();
+                spill = new RandomAccessFile(spillFile, "rw");
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(CHUNK_SIZE * 64);
+            WeakReference<BaseBarElement>[] elements = null;
+            WeakReference<BaseBarElement> lastElement = null;
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                out.write(lines[i].log.replace('\n', ' ').getBytes("UTF-8"));
+                out.write('\n');
+                BaseBarElement element = lines[i].element;
+                if (element != null) {
+                    if (elements == null) {
+                        elements = newElements();
+                    }
+                    if (lastElement == null || lastElement.get() != element) {
+                        lastElement = new WeakReference<BaseBarElement>(element);
+                    }
+                    elements[i] = lastElement;
+                }
+            }
+            spill.seek(spillLength);
+            spill.write(out.toByteArray());
+            ensureSpillCapacity(chunk + 2);
+            spillOffsets[chunk] = spillLength;
+            spillLength += out.size();
+            spillOffsets[chunk + 1] = spillLength;
+            spillElements[chunk] = elements;
+            chunks[chunk] = null;
+        } catch (Exception e) {
+            e.printStackTrace();
+            spillFailed = true;
+        }
+    }
+
+    private void ensureSpillCapacity(int capacity) {
+        if (capacity <= spillOffsets.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, spillOffsets.length * 2);
+        long[] newOffsets = new long[newCapacity];
+        System.arraycopy(spillOffsets, 0, newOffsets, 0, spillOffsets.length);
+        spillOffsets = newOffsets;
+        WeakReference<BaseBarElement>[][] newElements = newElementChunks(newCapacity);
+        System.arraycopy(spillElements, 0, newElements, 0, spillElements.length);
+        spillElements = newElements;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static WeakReference<BaseBarElement>[][] newElementChunks(int capacity) {
+        return (WeakReference<BaseBarElement>[][]) new WeakReference<?>[capacity][];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static WeakReference<BaseBarElement>[] newElements() {
+        return (WeakReference<BaseBarElement>[]) new WeakReference<?>[CHUNK_SIZE];
+    }
+
+    private synchronized ConsoleOutput.LogLine getSpilled(int index) {
+        if (closed) {
+            return EMPTY_LINE;
+        }
+        int chunk = index >> CHUNK_SHIFT;
+        ConsoleOutput.LogLine[] lines = loadedChunks.get(chunk);
+        if (lines == null) {
+            lines = loadChunk(chunk);
+            if (lines == null) {
+                return EMPTY_LINE;
+            }
+            loadedChunks.put(chunk, lines);
+        }
+        return lines[index & CHUNK_MASK];
+    }
+
+    private ConsoleOutput.LogLine[] loadChunk(int chunk) {
+        try {
+            byte[] bytes = new byte[(int) (spillOffsets[chunk + 1] - spillOffsets[chunk])];
+            spill.seek(spillOffsets[chunk]);
+            spill.readFully(bytes);
+            WeakReference<BaseBarElement>[] elements = spillElements[chunk];
+            ConsoleOutput.LogLine[] lines = new ConsoleOutput.LogLine[CHUNK_SIZE];
+            int start = 0;
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                int end = start;
+                while (bytes[end] != '\n') {
+                    end++;
+                }
+                lines[i] = new ConsoleOutput.LogLine(new String(bytes, start, end - start, "UTF-8"), elements != null && elements[i] != null ? elements[i].get() : null);
+                start = end + 1;
+            }
+            return lines;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private static long estimateBytes(ConsoleOutput.LogLine logLine) {
+        return LINE_OVERHEAD_BYTES + (logLine.log != null ? logLine.log.length() * 2 : 0);
+    }
+
+    private static int getMaxLines() {
+        try {
+            return Integer.parseInt(ConfigurationManager.get("consoleMaxLines").trim());
+        } catch (Exception e) {
+            return DEFAULT_MAX_LINES;
+        }
+    }
+
+    private static long getMaxBytes() {
+        try {
+            return Long.parseLong(ConfigurationManager.get("consoleMaxBytes").trim());
+        } catch (Exception e) {
+            return DEFAULT_MAX_BYTES;
+        }
+    }
+
+    private static class Snapshot extends AbstractList<ConsoleOutput.LogLine> implements RandomAccess {
+        private final LogLineStore store;
+        private final ConsoleOutput.LogLine[][] chunks;
+        private final int size;
+
+        private Snapshot(LogLineStore store, ConsoleOutput.LogLine[][] chunks, int size) {
+            this.store = store;
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        public ConsoleOutput.LogLine get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            ConsoleOutput.LogLine[] chunk = chunks[index >> CHUNK_SHIFT];
+            if (chunk != null) {
+                return chunk[index & CHUNK_MASK];
+            }
+            return store.getSpilled(index);
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.trollsahead.qcumberless.model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+class LogQueue {
+    private final int capacity;
+
+    private final AtomicReference<Node> head;
+    private Node tail;
+
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long ingested = 0;
+
+    LogQueue(int capacity) {
+        this.capacity = capacity;
+        tail = new Node(null);
+        head = new AtomicReference<Node>(tail);
+    }
+
+    int offer(ConsoleOutput.LogLine logLine) {
+        int newDepth = depth.incrementAndGet();
+        if (newDepth > capacity) {
+            depth.decrementAndGet();
+            dropped.incrementAndGet();
+            return -1;
+        }
+        Node node = new Node(logLine);
+        head.getAndSet(node).next = node;
+        return newDepth;
+    }
+
+    ConsoleOutput.LogLine poll() {
+        Node next = tail.next;
+        if (next == null) {
+            return null;
+        }
+        ConsoleOutput.LogLine logLine = next.logLine;
+        next.logLine = null;
+        tail = next;
+        depth.decrementAndGet();
+        ingested++;
+        return logLine;
+    }
+
+    void clear() {
+        ConsoleOutput.LogLine logLine;
+        do {
+            logLine = poll();
+        } while (logLine != null);
+    }
+
+    int getDepth() {
+        return depth.get();
+    }
+
+    long getDropped() {
+        return dropped.get();
+    }
+
+    long getIngested() {
+        return ingested;
+    }
+
+    private static class Node {
+        private ConsoleOutput.LogLine logLine;
+        private volatile Node next = null;
+
+        private Node(ConsoleOutput.LogLine logLine) {
+            this.logLine = logLine;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.trollsahead.qcumberless.model;
+
+import com.trollsahead.qcumberless.util.FileUtil;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LogSearchIndex {
+    public static final String FILE_EXTENSION = ".logindex";
+
+    public static final int CHUNK_LINES = 128;
+    public static final int MIN_QUERY_LENGTH = 3;
+    private static final int BLOOM_WORDS = 256;
+    private static final int BLOOM_MASK = BLOOM_WORDS * 64 - 1;
+
+    private static final int MAGIC = 0x51434c49;
+    private static final int VERSION = 1;
+
+    private long[][] blooms = new long[16][];
+    private long[] offsets = new long[16];
+    private int lineCount = 0;
+    private int firstKeptChunk = 0;
+
+    public void add(String line) {
+        add(line, -1);
+    }
+
+    public void add(String line, long offset) {
+        int chunk = lineCount / CHUNK_LINES;
+        if (chunk == blooms.length) {
+            long[][] newBlooms = new long[blooms.length * 2][];
+            System.arraycopy(blooms, 0, newBlooms, 0, blooms.length);
+            blooms = newBlooms;
+            long[] newOffsets = new long[offsets.length * 2];
+            System.arraycopy(offsets, 0, newOffsets, 0, offsets.length);
+            offsets = newOffsets;
+        }
+        if (blooms[chunk] == null) {
+            blooms[chunk] = new long[BLOOM_WORDS];
+            offsets[chunk] = offset;
+        }
+        long[] bloom = blooms[chunk];
+        for (int i = 0; i + 3 <= line.length(); i++) {
+            int hash = hash(line.charAt(i), line.charAt(i + 1), line.charAt(i + 2)) & BLOOM_MASK;
+            bloom[hash >>> 6] |= 1L << hash;
+        }
+        lineCount++;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public int getChunkCount() {
+        return (lineCount + CHUNK_LINES - 1) / CHUNK_LINES;
+    }
+
+    public long getChunkOffset(int chunk) {
+        return offsets[chunk];
+    }
+
+    public void dropBefore(int line) {
+        int chunks = Math.min(line / CHUNK_LINES, getChunkCount());
+        for (; firstKeptChunk < chunks; firstKeptChunk++) {
+            blooms[firstKeptChunk] = null;
+        }
+    }
+
+    public boolean mayContain(int chunk, int[] trigrams) {
+        long[] bloom = blooms[chunk];
+        if (bloom == null) {
+            return true;
+        }
+        for (int hash : trigrams) {
+            if ((bloom[hash >>> 6] & (1L << hash)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static int[] getTrigrams(String query) {
+        int[] trigrams = new int[Math.max(0, query.length() - 2)];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = hash(query.charAt(i), query.charAt(i + 1), query.charAt(i + 2)) & BLOOM_MASK;
+        }
+        return trigrams;
+    }
+
+    public static boolean containsIgnoreCase(String line, String query) {
+        for (int i = 0; i + query.length() <= line.length(); i++) {
+            if (line.regionMatches(true, i, query, 0, query.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int hash(char c1, char c2, char c3) {
+        int hash = (normalize(c1) * 31 + normalize(c2)) * 31 + normalize(c3);
+        return hash ^ (hash >>> 13) ^ (hash * 0x9e3779b9);
+    }
+
+    private static char normalize(char ch) {
+        return Character.toLowerCase(Character.toUpperCase(ch));
+    }
+
+    public void write(File file) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(CHUNK_LINES);
+            out.writeInt(BLOOM_WORDS);
+            out.writeInt(lineCount);
+            for (int chunk = 0; chunk < getChunkCount(); chunk++) {
+                out.writeLong(offsets[chunk]);
+                long[] bloom = blooms[chunk];
+                for (int i = 0; i < BLOOM_WORDS; i++) {
+                    out.writeLong(bloom != null ? bloom[i] : -1L);
+                }
+            }
+        } finally {
+            FileUtil.close(out);
+        }
+    }
+
+    public static LogSearchIndex read(File file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != CHUNK_LINES || in.readInt() != BLOOM_WORDS) {
+                throw new IOException("Unsupported log index " + file.getAbsolutePath());
+            }
+            LogSearchIndex index = new LogSearchIndex();
+            index.lineCount = in.readInt();
+            int chunks = index.getChunkCount();
+            index.blooms = new long[Math.max(1, chunks)][];
+            index.offsets = new long[Math.max(1, chunks)];
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                index.offsets[chunk] = in.readLong();
+                long[] bloom = new long[BLOOM_WORDS];
+                for (int i = 0; i < BLOOM_WORDS; i++) {
+                    bloom[i] = in.readLong();
+                }
+                index.blooms[chunk] = bloom;
+            }
+            return index;
+        } finally {
+            FileUtil.close(in);
+        }
+    }
+
+    public static File getIndexFile(File logFile) {
+        return new File(logFile.getAbsolutePath() + FILE_EXTENSION);
+    }
+
+    public static boolean isSearchable(String query) {
+        return query != null && query.length() >= MIN_QUERY_LENGTH;
+    }
+
+    public static List<Long> searchLogFile(File logFile, String query, int maxMatches) {
+        List<Long> matches = new ArrayList<Long>();
+        LogSearchIndex index;
+        try {
+            index = read(getIndexFile(logFile));
+        } catch (IOException e) {
+            index = null;
+        }
+        FileInputStream in = null;
+        try {
+            in = new FileInputStream(logFile);
+            long length = logFile.length();
+            if (index == null) {
+                searchLines(new BufferedInputStream(in), 0, length, query, matches, maxMatches);
+                return matches;
+            }
+            int[] trigrams = getTrigrams(query);
+            int chunks = index.getChunkCount();
+            for (int chunk = 0; chunk < chunks && matches.size() < maxMatches && !Thread.currentThread().isInterrupted(); chunk++) {
+                if (index.mayContain(chunk, trigrams)) {
+                    long start = index.getChunkOffset(chunk);
+                    long end = chunk + 1 < chunks ? index.getChunkOffset(chunk + 1) : length;
+                    in.getChannel().position(start);
+                    searchLines(new BufferedInputStream(in), start, end, query, matches, maxMatches);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            FileUtil.close(in);
+        }
+        return matches;
+    }
+
+    public static String readLine(File logFile, long offset) {
+        RandomAccessFile in = null;
+        try {
+            in = new RandomAccessFile(logFile, "r");
+            in.seek(offset);
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                int end = 0;
+                while (end < count && buffer[end] != '\n') {
+                    end++;
+                }
+                line.write(buffer, 0, end);
+                if (end < count) {
+                    break;
+                }
+            }
+            return line.toString("UTF-8");
+        } catch (IOException e) {
+            e.printStackTrace();
+            return "";
+        } finally {
+            FileUtil.close(in);
+        }
+    }
+
+    private static void searchLines(InputStream in, long start, long end, String query, List<Long> matches, int maxMatches) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        long lineStart = start;
+        for (long position = start; position < end; position++) {
+            int b = in.read();
+            if (b == -1) {
+                break;
+            }
+            if (b != '\n') {
+                line.write(b);
+                continue;
+            }
+            if (containsIgnoreCase(line.toString("UTF-8"), query)) {
+                matches.add(lineStart);
+                if (matches.size() >= maxMatches) {
+                    return;
+                }
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            line.reset();
+            lineStart = position + 1;
+        }
+        if (line.size() > 0 && matches.size() < maxMatches && containsIgnoreCase(line.toString("UTF-8"), query)) {
+            matches.add(lineStart);
+        }
+    }
+}
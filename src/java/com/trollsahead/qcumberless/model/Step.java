@@ -26,8 +26,10 @@
 package com.trollsahead.qcumberless.model;
 
 import com.trollsahead.qcumberless.engine.Engine;
+import com.trollsahead.qcumberless.util.TextLayoutCache;
 import com.trollsahead.qcumberless.util.Util;
 
+import java.awt.*;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ArrayList;
@@ -38,6 +40,7 @@ public class Step {
     private static final String PARAMETER_TAG = "\\(\\.\\*\\)";
 
     private String definition;
+    private Pattern pattern = null;
     private boolean isMatched;
 
     private List<StepDefinitionHook> hooks = new ArrayList<StepDefinitionHook>();
@@ -48,6 +51,11 @@ public class Step {
     private boolean textDirty = true;
     private int renderWidth = 0;
 
+    private int textVersion = 0;
+    private int layoutTextVersion = -1;
+    private FontMetrics layoutFontMetrics = null;
+    private int layoutStartY = 0;
+
     public Step(String definition) {
         this(definition, true);
     }
@@ -67,22 +75,28 @@ public class Step {
     }
 
     public Step(Step step, String line) {
+        this(step, step.findParameters(line));
+    }
+
+    public Step(Step step, String[] parameters) {
         this.definition = Util.stripLeadingSpaces(step.definition);
+        this.pattern = step.pattern;
         this.hooks = new LinkedList<StepDefinitionHook>();
         for (StepDefinitionHook hook : step.hooks) {
             this.hooks.add(hook.duplicate());
         }
         this.parts = null;
-        findParameters(Util.stripLeadingSpaces(line));
+        setParameters(parameters);
         findParts();
         isMatched = true;
     }
 
     public Step duplicate() {
         Step step = new Step(definition);
+        step.pattern = this.pattern;
         step.renderKeyword = this.renderKeyword;
         step.isMatched = this.isMatched;
-        step.textDirty = true;
+        step.markTextChanged();
         for (StepDefinitionHook hook : this.hooks) {
             step.hooks.add(hook.duplicate());
         }
@@ -101,15 +115,28 @@ public class Step {
         return textDirty;
     }
 
-    private void findParameters(String line) {
-        Matcher matcher = Pattern.compile(definition).matcher(Util.stripLeadingSpaces(line));
+    public Pattern getPattern() {
+        if (pattern == null) {
+            pattern = Pattern.compile(definition);
+        }
+        return pattern;
+    }
+
+    public String[] findParameters(String line) {
+        Matcher matcher = getPattern().matcher(Util.stripLeadingSpaces(line));
         matcher.find();
-        if (matcher.groupCount() > 0) {
-            for (int i = 0; i < matcher.groupCount(); i++) {
-                hooks.get(i).setActualParameter(matcher.group(i + 1));
-            }
+        String[] parameters = new String[matcher.groupCount()];
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i] = matcher.group(i + 1);
         }
-        textDirty = true;
+        return parameters;
+    }
+
+    private void setParameters(String[] parameters) {
+        for (int i = 0; i < parameters.length; i++) {
+            hooks.get(i).setActualParameter(parameters[i]);
+        }
+        markTextChanged();
     }
 
     public boolean matchedByStepDefinition() {
@@ -131,7 +158,7 @@ public class Step {
         for (StepDefinitionHook hook : hooks) {
             hook.setActualParameter(hook.getValidParameters()[0]);
         }
-        textDirty = true;
+        markTextChanged();
         updateRenderKeyword();
     }
 
@@ -158,7 +185,7 @@ public class Step {
     }
 
     public boolean matches(String line) {
-        return line.matches(definition);
+        return getPattern().matcher(line).matches();
     }
 
     public String toString() {
@@ -197,13 +224,13 @@ public class Step {
                 part.render = true;
             }
         }
-        textDirty = true;
+        markTextChanged();
     }
 
     public void setRenderWidth(int width) {
         if (renderWidth != width) {
             renderWidth = width;
-            textDirty = true;
+            markTextChanged();
         }
     }
 
@@ -219,6 +246,33 @@ public class Step {
         this.textDirty = textDirty;
     }
 
+    private void markTextChanged() {
+        textDirty = true;
+        textVersion++;
+    }
+
+    public boolean hasLayout(FontMetrics fontMetrics) {
+        return parts != null && layoutFontMetrics == fontMetrics && layoutTextVersion == textVersion;
+    }
+
+    public void setLayout(FontMetrics fontMetrics, int startY) {
+        layoutFontMetrics = fontMetrics;
+        layoutTextVersion = textVersion;
+        layoutStartY = startY;
+    }
+
+    public void moveLayout(int startY) {
+        int deltaY = startY - layoutStartY;
+        if (deltaY == 0) {
+            return;
+        }
+        for (CucumberStepPart part : parts) {
+            part.startY += deltaY;
+            part.endY += deltaY;
+        }
+        layoutStartY = startY;
+    }
+
     public static class CucumberStepPart {
         public static enum PartType {TEXT, ARGUMENT}
 
@@ -260,55 +314,67 @@ public class Step {
             if (!parentStep.isTextDirty()) {
                 return;
             }
+            FontMetrics fontMetrics = Engine.fontMetrics;
             this.startX = startX;
             this.startY = startY;
             this.endX = startX;
             this.endY = startY;
-            wrappedText = new LinkedList<String>();
+            wrappedText = new ArrayList<String>();
             wrappedText.add("");
             if (!render) {
                 return;
             }
             if (Util.isEmpty(text)) {
-                this.endX += Engine.fontMetrics.stringWidth(" ");
+                this.endX += TextLayoutCache.stringWidth(" ", fontMetrics);
                 return;
             }
             String[] lines = getText().split("\n");
+            boolean simple = TextLayoutCache.isSimple(text);
             boolean addNewLine = false;
             int offsetX = startX;
+            StringBuilder currentLine = new StringBuilder();
+            float lineAdvance = 0.0f;
             for (String line : lines) {
                 if (addNewLine) {
                     this.endX = 0;
-                    this.endY += Engine.fontMetrics.getHeight();
+                    this.endY += fontMetrics.getHeight();
                     offsetX = 0;
                     wrappedText.add("");
+                    currentLine.setLength(0);
+                    lineAdvance = 0.0f;
                 }
                 String[] words = type == PartType.TEXT ? line.split(" ") : new String[] {line};
                 for (int i = 0; i < words.length; i++) {
-                    String space = i < words.length - 1 || line.endsWith(" ") ? " " : "";
-                    offsetX = addWordToWrappedText(words[i] + space, parentStep.renderWidth, offsetX);
+                    String word = i < words.length - 1 || line.endsWith(" ") ? words[i] + " " : words[i];
+                    float wordAdvance = simple ? TextLayoutCache.advance(word, fontMetrics) : 0.0f;
+                    endX = offsetX + (simple ? TextLayoutCache.round(lineAdvance + wordAdvance) : fontMetrics.stringWidth(currentLine + word));
+                    if (endX < parentStep.renderWidth) {
+                        currentLine.append(word);
+                        lineAdvance += wordAdvance;
+                    } else {
+                        setLastWrappedLine(currentLine);
+                        endX = simple ? TextLayoutCache.round(wordAdvance) : fontMetrics.stringWidth(word);
+                        endY += fontMetrics.getHeight();
+                        wrappedText.add("");
+                        currentLine.setLength(0);
+                        currentLine.append(word);
+                        lineAdvance = wordAdvance;
+                        offsetX = 0;
+                    }
                 }
+                setLastWrappedLine(currentLine);
                 if (Util.isEmpty(wrappedText.get(0))) {
                     this.startX = 0;
-                    this.startY += Engine.fontMetrics.getHeight();
+                    this.startY += fontMetrics.getHeight();
                     wrappedText.remove(0);
                 }
                 addNewLine = true;
             }
         }
-        
-        private int addWordToWrappedText(String word, int width, int offsetX) {
-            int index = wrappedText.size() - 1;
-            String currentLine = wrappedText.get(index);
-            endX = offsetX + Engine.fontMetrics.stringWidth(currentLine + word);
-            if (endX < width) {
-                wrappedText.set(index, currentLine + word);
-                return offsetX;
-            } else {
-                endX = Engine.fontMetrics.stringWidth(word);
-                endY += Engine.fontMetrics.getHeight();
-                wrappedText.add(word);
-                return 0;
+
+        private void setLastWrappedLine(StringBuilder currentLine) {
+            if (!wrappedText.isEmpty()) {
+                wrappedText.set(wrappedText.size() - 1, currentLine.toString());
             }
         }
 
@@ -335,7 +401,7 @@ public class Step {
             if (hook != null) {
                 hook.setActualParameter(text);
             }
-            parentStep.textDirty = true;
+            parentStep.markTextChanged();
         }
 
         public boolean matchesRegExp() {
@@ -0,0 +1,220 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.trollsahead.qcumberless.model;
+
+import com.trollsahead.qcumberless.util.TextLayoutCache;
+import com.trollsahead.qcumberless.util.Util;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.List;
+
+class WrappedLogIndex {
+    private static final int ROW_CACHE_SIZE = 512;
+    private static final int MAX_CATCH_UP_LINES = 4096;
+
+    private static final String[] NO_ROWS = new String[0];
+
+    private final int wrapWidth;
+    private final FontMetrics fontMetrics;
+
+    private int anchor;
+    private int[] rowsAfter = new int[256];
+    private int linesAfter = 0;
+    private int[] rowsBefore = new int[256];
+    private int linesBefore = 0;
+
+    private final String[][] rowCache = new String[ROW_CACHE_SIZE][];
+    private final int[] rowCacheLine = new int[ROW_CACHE_SIZE];
+
+    WrappedLogIndex(int wrapWidth, FontMetrics fontMetrics, int lineCount) {
+        this.wrapWidth = wrapWidth;
+        this.fontMetrics = fontMetrics;
+        this.anchor = lineCount;
+        Arrays.fill(rowCacheLine, -1);
+    }
+
+    boolean matches(int wrapWidth, FontMetrics fontMetrics) {
+        return this.wrapWidth == wrapWidth && this.fontMetrics == fontMetrics;
+    }
+
+    int fill(LogLineStore log, int rowsFromBottom, ConsoleOutput.LogLine[] rows, int[] rowLines) {
+        catchUp(log);
+        int end = rowsAfter[linesAfter] - rowsFromBottom;
+        int start = end - rows.length;
+        indexBackwards(log, -start);
+        start = Math.max(start, -rowsBefore[linesBefore]);
+        end = Math.max(end, start);
+        if (start == end) {
+            return 0;
+        }
+        int line;
+        int lineStart;
+        if (start >= 0) {
+            int j = findLast(rowsAfter, linesAfter, start);
+            line = anchor + j;
+            lineStart = rowsAfter[j];
+        } else {
+            int k = findFirst(rowsBefore, linesBefore, -start);
+            line = anchor - k;
+            lineStart = -rowsBefore[k];
+        }
+        int count = 0;
+        for (; count < end - start; line++) {
+            String[] lineRows = getRows(log, line);
+            ConsoleOutput.LogLine logLine = log.get(line);
+            for (int i = start + count - lineStart; i < lineRows.length && count < end - start; i++) {
+                rows[count].log = lineRows[i];
+                rows[count].element = logLine.element;
+                if (rowLines != null) {
+                    rowLines[count] = line;
+                }
+                count++;
+            }
+            lineStart += lineRows.length;
+        }
+        return count;
+    }
+
+    int getMaxScroll(LogLineStore log, int visibleRows, int rowsFromBottom) {
+        catchUp(log);
+        indexBackwards(log, rowsFromBottom + visibleRows - rowsAfter[linesAfter]);
+        return Math.max(0, rowsAfter[linesAfter] + rowsBefore[linesBefore] - visibleRows);
+    }
+
+    int getRowsFrom(LogLineStore log, int line) {
+        catchUp(log);
+        if (line >= anchor) {
+            return rowsAfter[linesAfter] - rowsAfter[Math.min(line - anchor, linesAfter)];
+        }
+        indexBackwards(log, 0, anchor - line);
+        return rowsAfter[linesAfter] + rowsBefore[Math.min(anchor - line, linesBefore)];
+    }
+
+    private void catchUp(LogLineStore log) {
+        int size = log.size();
+        int indexed = anchor + linesAfter;
+        if (size - indexed > MAX_CATCH_UP_LINES || size < indexed) {
+            if (size < indexed) {
+                Arrays.fill(rowCacheLine, -1);
+            }
+            anchor = size;
+            linesAfter = 0;
+            linesBefore = 0;
+            return;
+        }
+        for (int line = indexed; line < size; line++) {
+            if (linesAfter + 1 == rowsAfter.length) {
+                rowsAfter = grow(rowsAfter);
+            }
+            rowsAfter[linesAfter + 1] = rowsAfter[linesAfter] + countRows(log, line);
+            linesAfter++;
+        }
+    }
+
+    private static int[] grow(int[] rows) {
+        int[] newRows = new int[rows.length * 2];
+        System.arraycopy(rows, 0, newRows, 0, rows.length);
+        return newRows;
+    }
+
+    private void indexBackwards(LogLineStore log, int neededRows) {
+        indexBackwards(log, neededRows, 0);
+    }
+
+    private void indexBackwards(LogLineStore log, int neededRows, int neededLines) {
+        while ((rowsBefore[linesBefore] < neededRows || linesBefore < neededLines) && linesBefore < anchor) {
+            if (linesBefore + 1 == rowsBefore.length) {
+                rowsBefore = grow(rowsBefore);
+            }
+            rowsBefore[linesBefore + 1] = rowsBefore[linesBefore] + countRows(log, anchor - linesBefore - 1);
+            linesBefore++;
+        }
+    }
+
+    private static int findLast(int[] sums, int count, int value) {
+        int low = 0;
+        int high = count - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (sums[mid] <= value) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private static int findFirst(int[] sums, int count, int value) {
+        int low = 1;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sums[mid] >= value) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private int countRows(LogLineStore log, int line) {
+        if (rowCacheLine[line & (ROW_CACHE_SIZE - 1)] != line) {
+            String text = log.get(line).log;
+            if (Util.isEmpty(text)) {
+                return 0;
+            }
+            if (wrapWidth == -1 || (text.indexOf('\n') == -1 && TextLayoutCache.stringWidth(text, fontMetrics) <= wrapWidth)) {
+                return 1;
+            }
+        }
+        return getRows(log, line).length;
+    }
+
+    private String[] getRows(LogLineStore log, int line) {
+        int slot = line & (ROW_CACHE_SIZE - 1);
+        if (rowCacheLine[slot] == line) {
+            return rowCache[slot];
+        }
+        String[] rows = wrap(log.get(line).log);
+        rowCache[slot] = rows;
+        rowCacheLine[slot] = line;
+        return rows;
+    }
+
+    private String[] wrap(String text) {
+        if (Util.isEmpty(text)) {
+            return NO_ROWS;
+        }
+        if (wrapWidth == -1) {
+            return new String[] {text};
+        }
+        List<String> rows = TextLayoutCache.wrapText(text, wrapWidth, fontMetrics, false);
+        return rows.toArray(new String[rows.size()]);
+    }
+}
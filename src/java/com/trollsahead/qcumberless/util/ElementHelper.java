@@ -30,6 +30,7 @@ import com.trollsahead.qcumberless.gui.Button;
 import com.trollsahead.qcumberless.gui.DropDown;
 import com.trollsahead.qcumberless.gui.elements.Element;
 import com.trollsahead.qcumberless.gui.elements.BaseBarElement;
+import com.trollsahead.qcumberless.gui.elements.ElementIndex;
 
 import java.io.File;
 import java.util.LinkedList;
@@ -190,6 +191,41 @@ public class ElementHelper {
         return newElement;
     }
 
+    public static void copyViewState(Element source, Element dest) {
+        if (source.isFolded() != dest.isFolded()) {
+            if (source.isFolded()) {
+                dest.fold();
+            } else {
+                dest.unfold();
+            }
+        }
+        dest.animation.moveAnimation.setRealPosition(source.animation.moveAnimation, true);
+        dest.animation.moveAnimation.setRenderPosition(source.animation.moveAnimation, true);
+        for (int i = 0; i < dest.children.size(); i++) {
+            Element destChild = dest.children.get(i);
+            Element sourceChild = findMatchingChild(source, destChild, i);
+            if (sourceChild != null) {
+                copyViewState(sourceChild, destChild);
+            }
+        }
+    }
+
+    private static Element findMatchingChild(Element parent, Element child, int index) {
+        if (index < parent.children.size() && isSameElement(parent.children.get(index), child)) {
+            return parent.children.get(index);
+        }
+        for (Element candidate : parent.children) {
+            if (isSameElement(candidate, child)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isSameElement(Element element1, Element element2) {
+        return element1.type == element2.type && Util.getFirstLine(element1.getTitle()).equals(Util.getFirstLine(element2.getTitle()));
+    }
+
     public static BaseBarElement findBackgroundElement(Element element) {
         if (element == null) {
             return null;
@@ -221,6 +257,7 @@ public class ElementHelper {
         if (examplesElement != null && element.findChildIndex(examplesElement) < element.children.size() - 1) {
             element.removeChild(examplesElement);
             element.children.add(examplesElement);
+            ElementIndex.invalidate();
         }
     }
     
@@ -45,6 +45,10 @@ public class FileUtil {
         return traverseDirectory(new File[] {new File(directory)}, ".history");
     }
 
+    public static List<String> getLogFiles(String directory) {
+        return traverseDirectory(new File[] {new File(directory)}, ".log");
+    }
+
     public static List<String> traverseDirectory(File[] files, String suffix) {
         List<String> foundFiles = new LinkedList<String>();
         if (files == null) {
@@ -0,0 +1,169 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+package com.trollsahead.qcumberless.util;
+
+import java.io.PrintWriter;
+
+public class Histogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+    private static final int MAX_VALUE_BITS = 40;
+    private static final int BUCKET_COUNT = MAX_VALUE_BITS - SUB_BUCKET_BITS + 2;
+    private static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+    private static final int PERCENTILE_TICKS_PER_HALF_DISTANCE = 5;
+
+    private final long[] counts = new long[SUB_BUCKET_COUNT + (BUCKET_COUNT - 1) * SUB_BUCKET_HALF_COUNT];
+    private long totalCount = 0;
+    private long minValue = Long.MAX_VALUE;
+    private long maxValue = 0;
+    private double total = 0.0;
+    private double totalSquared = 0.0;
+
+    public synchronized void recordValue(long value) {
+        value = Math.max(0, Math.min(MAX_VALUE, value));
+        counts[getIndex(value)]++;
+        totalCount++;
+        minValue = Math.min(minValue, value);
+        maxValue = Math.max(maxValue, value);
+        total += value;
+        totalSquared += (double) value * value;
+    }
+
+    public synchronized void add(Histogram histogram) {
+        synchronized (histogram) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += histogram.counts[i];
+            }
+            totalCount += histogram.totalCount;
+            minValue = Math.min(minValue, histogram.minValue);
+            maxValue = Math.max(maxValue, histogram.maxValue);
+            total += histogram.total;
+            totalSquared += histogram.totalSquared;
+        }
+    }
+
+    public synchronized void reset() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = 0;
+        }
+        totalCount = 0;
+        minValue = Long.MAX_VALUE;
+        maxValue = 0;
+        total = 0.0;
+        totalSquared = 0.0;
+    }
+
+    public synchronized long getTotalCount() {
+        return totalCount;
+    }
+
+    public synchronized long getMinValue() {
+        return totalCount == 0 ? 0 : minValue;
+    }
+
+    public synchronized long getMaxValue() {
+        return maxValue;
+    }
+
+    public synchronized double getMean() {
+        return totalCount == 0 ? 0.0 : total / totalCount;
+    }
+
+    public synchronized double getStdDeviation() {
+        if (totalCount == 0) {
+            return 0.0;
+        }
+        double mean = total / totalCount;
+        return Math.sqrt(Math.max(0.0, totalSquared / totalCount - mean * mean));
+    }
+
+    public synchronized long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long countAtPercentile = Math.max(1, (long) Math.ceil(Math.min(100.0, percentile) / 100.0 * totalCount));
+        long count = 0;
+        for (int i = 0; i < counts.length; i++) {
+            count += counts[i];
+            if (count >= countAtPercentile) {
+                return Math.min(maxValue, getHighestEquivalentValue(i));
+            }
+        }
+        return maxValue;
+    }
+
+    public synchronized void outputPercentileDistribution(PrintWriter out, double valueScale) {
+        out.println(String.format("%12s %14s %10s %14s", "Value", "Percentile", "TotalCount", "1/(1-Percentile)"));
+        out.println();
+        if (totalCount > 0) {
+            double percentileToReport = 0.0;
+            long count = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    continue;
+                }
+                count += counts[i];
+                double percentile = 100.0 * count / totalCount;
+                while (percentileToReport < 100.0 && percentile >= percentileToReport) {
+                    double value = Math.min(maxValue, getHighestEquivalentValue(i)) / valueScale;
+                    out.println(String.format("%12.3f %2.12f %10d %14.2f", value, percentileToReport / 100.0, count, 1.0 / (1.0 - percentileToReport / 100.0)));
+                    percentileToReport += getPercentileStep(percentileToReport);
+                    if (count == totalCount) {
+                        break;
+                    }
+                }
+            }
+            out.println(String.format("%12.3f %2.12f %10d", maxValue / valueScale, 1.0, totalCount));
+        }
+        out.println(String.format("#[Mean    = %12.3f, StdDeviation   = %12.3f]", getMean() / valueScale, getStdDeviation() / valueScale));
+        out.println(String.format("#[Max     = %12.3f, Total count    = %12d]", maxValue / valueScale, totalCount));
+        out.println(String.format("#[Buckets = %12d, SubBuckets     = %12d]", BUCKET_COUNT, SUB_BUCKET_COUNT));
+        out.flush();
+    }
+
+    private static double getPercentileStep(double percentile) {
+        double halfDistances = Math.floor(Math.log(100.0 / (100.0 - percentile)) / Math.log(2.0)) + 1.0;
+        return 100.0 / (PERCENTILE_TICKS_PER_HALF_DISTANCE * Math.pow(2.0, halfDistances));
+    }
+
+    private static int getIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> exponent);
+        return SUB_BUCKET_COUNT + (exponent - 1) * SUB_BUCKET_HALF_COUNT + subBucket - SUB_BUCKET_HALF_COUNT;
+    }
+
+    private static long getHighestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int exponent = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << exponent) - 1;
+    }
+}
@@ -107,7 +107,7 @@ public class HistoryHelper {
             RunHistory.addFeature(file.getAbsolutePath());
         }
         String filename = FileUtil.addSlashToPath(dir.getAbsolutePath()) + FileUtil.toFilename(device.name());
-        device.getConsoleOutput().exportLog(filename + ".log", ConsoleOutput.getPreample(device, new Date(startTime), tags));
+        device.getConsoleOutput().exportLog(filename + ".log", ConsoleOutput.getPreample(device, new Date(startTime), tags), true);
         writeRunParameters(filename + ".history", device, startTime, tags);
         return dir;
     }
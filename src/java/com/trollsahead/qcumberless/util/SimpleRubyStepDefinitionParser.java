@@ -33,38 +33,36 @@ import com.trollsahead.qcumberless.model.StepDefinitionHook;
 
 import static com.trollsahead.qcumberless.model.Locale.Language;
 
-import java.io.BufferedReader;
-import java.io.FileInputStream;
-import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.*;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class SimpleRubyStepDefinitionParser {
-    private static final String hooksPattern = "# qcumberless (.*)";
+    private static final Pattern hooksPattern = Pattern.compile("# qcumberless (.*)");
+
+    private static final Map<String, Pattern> stepDefinitionPatterns = buildStepDefinitionPatterns();
 
     public static Map<String, List<StepDefinition>> parseFiles(String[] filenames) {
         return parseFiles(filenames, null);
     }
 
     public static Map<String, List<StepDefinition>> parseFiles(String[] filenames, ProgressBar progressBar) {
-        Map<String, List<StepDefinition>> stepDefinitionMap = new HashMap<String, List<StepDefinition>>();
-        int count = 0;
-        for (String filename : filenames) {
-            System.out.println("Parsing ruby file: " + filename);
-            if (progressBar != null) {
-                progressBar.setProcess(((float) count / (float) filenames.length) * 100.0f);
-            }
-            try {
-                stepDefinitionMap.put(FileUtil.removePostfixFromFilename(FileUtil.removePathFromFilename(filename)), parseFile(new FileInputStream(filename)));
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-            count++;
+        List<RubySource> sources = new ArrayList<RubySource>();
+        for (final String filename : filenames) {
+            sources.add(new RubySource(filename, "Parsing ruby file: " + filename) {
+                public InputStream openStream() throws IOException {
+                    return new FileInputStream(filename);
+                }
+            });
         }
-        return stepDefinitionMap;
+        return parseSources(sources, progressBar);
     }
 
     public static Map<String, List<StepDefinition>> parseFiles(URL[] urls) {
@@ -72,41 +70,64 @@ public class SimpleRubyStepDefinitionParser {
     }
 
     public static Map<String, List<StepDefinition>> parseFiles(URL[] urls, ProgressBar progressBar) {
+        List<RubySource> sources = new ArrayList<RubySource>();
+        for (final URL url : urls) {
+            sources.add(new RubySource(url.toString(), "Parsing URL: " + url.toString()) {
+                public InputStream openStream() throws IOException {
+                    return url.openStream();
+                }
+            });
+        }
+        return parseSources(sources, progressBar);
+    }
+
+    private static Map<String, List<StepDefinition>> parseSources(List<RubySource> sources, ProgressBar progressBar) {
         Map<String, List<StepDefinition>> stepDefinitionMap = new HashMap<String, List<StepDefinition>>();
-        int count = 0;
-        for (URL url : urls) {
-            System.out.println("Parsing URL: " + url.toString());
-            if (progressBar != null) {
-                progressBar.setProcess(((float) count / (float) urls.length) * 100.0f);
+        if (sources.isEmpty()) {
+            return stepDefinitionMap;
+        }
+        final StepDefinitionCache cache = StepDefinitionCache.isEnabled() ? StepDefinitionCache.load() : null;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(sources.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            List<Future<List<StepDefinition>>> futures = new ArrayList<Future<List<StepDefinition>>>();
+            for (final RubySource source : sources) {
+                futures.add(executor.submit(new Callable<List<StepDefinition>>() {
+                    public List<StepDefinition> call() throws Exception {
+                        System.out.println(source.description);
+                        return parseFile(source.openStream(), cache);
+                    }
+                }));
             }
-            try {
-                stepDefinitionMap.put(FileUtil.removePostfixFromFilename(FileUtil.removePathFromFilename(url.toString())), parseFile(url.openStream()));
-            } catch (Exception e) {
-                e.printStackTrace();
+            for (int i = 0; i < futures.size(); i++) {
+                if (progressBar != null) {
+                    progressBar.setProcess(((float) i / (float) sources.size()) * 100.0f);
+                }
+                try {
+                    stepDefinitionMap.put(FileUtil.removePostfixFromFilename(FileUtil.removePathFromFilename(sources.get(i).name)), futures.get(i).get());
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
             }
-            count++;
+        } finally {
+            executor.shutdownNow();
+        }
+        if (cache != null) {
+            cache.save();
         }
         return stepDefinitionMap;
     }
 
-    private static List<StepDefinition> parseFile(InputStream inputStream) {
-        List<StepDefinition> stepDefinitions = new LinkedList<StepDefinition>();
+    private static List<StepDefinition> parseFile(InputStream inputStream, StepDefinitionCache cache) {
+        StringBuilder content = new StringBuilder();
         BufferedReader in = null;
         try {
             in = new BufferedReader(new InputStreamReader(inputStream, "UTF8"));
             String line;
-            String hooks = null;
             while ((line = in.readLine()) != null) {
-                String newHooks = parseHooks(line);
-                if (!Util.isEmpty(newHooks)) {
-                    hooks = newHooks;
-                    continue;
-                }
-                StepDefinition stepDefinition = parseLine(line, hooks);
-                if (stepDefinition != null) {
-                    stepDefinitions.add(stepDefinition);
-                }
-                hooks = null;
+                content.append(line).append("\n");
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -114,32 +135,51 @@ public class SimpleRubyStepDefinitionParser {
         } finally {
             FileUtil.close(in);
         }
+        String hash = Locale.getLocale().name() + ":" + Util.md5(content);
+        List<StepDefinition> stepDefinitions = cache != null ? cache.get(hash) : null;
+        if (stepDefinitions == null) {
+            stepDefinitions = parseContent(content);
+            if (cache != null) {
+                cache.put(hash, stepDefinitions);
+            }
+        }
+        return stepDefinitions;
+    }
+
+    private static List<StepDefinition> parseContent(CharSequence content) {
+        List<StepDefinition> stepDefinitions = new LinkedList<StepDefinition>();
+        String hooks = null;
+        for (String line : content.toString().split("\n")) {
+            String newHooks = parseHooks(line);
+            if (!Util.isEmpty(newHooks)) {
+                hooks = newHooks;
+                continue;
+            }
+            StepDefinition stepDefinition = parseLine(line, hooks);
+            if (stepDefinition != null) {
+                stepDefinitions.add(stepDefinition);
+            }
+            hooks = null;
+        }
         return stepDefinitions;
     }
 
     private static String parseHooks(String line) {
-        if (!line.matches(hooksPattern)) {
+        Matcher matcher = hooksPattern.matcher(line);
+        if (!matcher.matches()) {
             return null;
-        } else {
-            Matcher matcher = Pattern.compile(hooksPattern).matcher(line);
-            matcher.find();
-            return matcher.group(1);
         }
+        return matcher.group(1);
     }
 
     private static StepDefinition parseLine(String line, String hooks) {
         if (Util.isEmpty(line)) {
             return null;
         }
-        for (String keyword : Constants.getStepPrefixsForLocale(Language.EN)) {
-            if (!Util.isWord(keyword)) {
-                continue;
-            }
-            String pattern = buildStepDefinitionPattern(keyword);
-            if (line.matches(pattern)) {
-                Matcher matcher = Pattern.compile(pattern).matcher(line);
-                matcher.find();
-                return parseStepDefinition(keyword, matcher.group(1), hooks);
+        for (Map.Entry<String, Pattern> entry : stepDefinitionPatterns.entrySet()) {
+            Matcher matcher = entry.getValue().matcher(line);
+            if (matcher.matches()) {
+                return parseStepDefinition(entry.getKey(), matcher.group(1), hooks);
             }
         }
         return null;
@@ -236,7 +276,29 @@ public class SimpleRubyStepDefinitionParser {
                 .replaceAll("§§§", "(.*)");
     }
 
+    private static Map<String, Pattern> buildStepDefinitionPatterns() {
+        Map<String, Pattern> patterns = new LinkedHashMap<String, Pattern>();
+        for (String keyword : Constants.getStepPrefixsForLocale(Language.EN)) {
+            if (Util.isWord(keyword)) {
+                patterns.put(keyword, Pattern.compile(buildStepDefinitionPattern(keyword)));
+            }
+        }
+        return patterns;
+    }
+
     private static String buildStepDefinitionPattern(String keyword) {
         return keyword + " /\\^(.*)\\$/.*";
     }
+
+    private static abstract class RubySource {
+        public final String name;
+        public final String description;
+
+        public RubySource(String name, String description) {
+            this.name = name;
+            this.description = description;
+        }
+
+        public abstract InputStream openStream() throws IOException;
+    }
 }
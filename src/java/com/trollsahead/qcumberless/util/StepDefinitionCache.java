@@ -0,0 +1,165 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.trollsahead.qcumberless.util;
+
+import com.trollsahead.qcumberless.model.StepDefinition;
+import com.trollsahead.qcumberless.model.StepDefinitionHook;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class StepDefinitionCache {
+    private static final int CACHE_VERSION = 1;
+    private static final String DEFAULT_CACHE_FILENAME = "qcumberless.stepcache";
+
+    private final String cacheFilename;
+    private final Map<String, List<StepDefinition>> cachedEntries = new ConcurrentHashMap<String, List<StepDefinition>>();
+    private final Map<String, List<StepDefinition>> usedEntries = new ConcurrentHashMap<String, List<StepDefinition>>();
+
+    public StepDefinitionCache(String cacheFilename) {
+        this.cacheFilename = cacheFilename;
+    }
+
+    public static boolean isEnabled() {
+        return !"false".equalsIgnoreCase(ConfigurationManager.get("stepDefinitionCache"));
+    }
+
+    public static StepDefinitionCache load() {
+        String filename = ConfigurationManager.get("stepDefinitionCacheFile");
+        return load(Util.isEmpty(filename) ? DEFAULT_CACHE_FILENAME : filename);
+    }
+
+    public static StepDefinitionCache load(String cacheFilename) {
+        StepDefinitionCache cache = new StepDefinitionCache(cacheFilename);
+        cache.read();
+        return cache;
+    }
+
+    public List<StepDefinition> get(String hash) {
+        List<StepDefinition> stepDefinitions = cachedEntries.get(hash);
+        if (stepDefinitions != null) {
+            usedEntries.put(hash, stepDefinitions);
+        }
+        return stepDefinitions;
+    }
+
+    public void put(String hash, List<StepDefinition> stepDefinitions) {
+        usedEntries.put(hash, stepDefinitions);
+    }
+
+    private void read() {
+        File file = new File(cacheFilename);
+        if (!file.exists()) {
+            return;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != CACHE_VERSION) {
+                return;
+            }
+            int entryCount = in.readInt();
+            for (int i = 0; i < entryCount; i++) {
+                String hash = readString(in);
+                int stepDefinitionCount = in.readInt();
+                List<StepDefinition> stepDefinitions = new LinkedList<StepDefinition>();
+                for (int j = 0; j < stepDefinitionCount; j++) {
+                    StepDefinition stepDefinition = new StepDefinition(readString(in));
+                    int hookCount = in.readInt();
+                    for (int k = 0; k < hookCount; k++) {
+                        String actualParameter = readString(in);
+                        String[] validParameters = new String[in.readInt()];
+                        for (int l = 0; l < validParameters.length; l++) {
+                            validParameters[l] = readString(in);
+                        }
+                        stepDefinition.addHook(new StepDefinitionHook(actualParameter, validParameters, readString(in)));
+                    }
+                    stepDefinitions.add(stepDefinition);
+                }
+                cachedEntries.put(hash, stepDefinitions);
+            }
+        } catch (Exception e) {
+            System.out.println("Could not read step definition cache " + cacheFilename + ": " + e.getMessage());
+            cachedEntries.clear();
+        } finally {
+            FileUtil.close(in);
+        }
+    }
+
+    public void save() {
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cacheFilename)));
+            out.writeInt(CACHE_VERSION);
+            List<Map.Entry<String, List<StepDefinition>>> entries = new ArrayList<Map.Entry<String, List<StepDefinition>>>(usedEntries.entrySet());
+            out.writeInt(entries.size());
+            for (Map.Entry<String, List<StepDefinition>> entry : entries) {
+                writeString(out, entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (StepDefinition stepDefinition : entry.getValue()) {
+                    writeString(out, stepDefinition.getStepDefinition());
+                    out.writeInt(stepDefinition.getHooks().size());
+                    for (StepDefinitionHook hook : stepDefinition.getHooks()) {
+                        writeString(out, hook.getActualParameter());
+                        out.writeInt(hook.getValidParameters().length);
+                        for (String validParameter : hook.getValidParameters()) {
+                            writeString(out, validParameter);
+                        }
+                        writeString(out, hook.getRegExp());
+                    }
+                }
+            }
+        } catch (Exception e) {
+            System.out.println("Could not save step definition cache " + cacheFilename + ": " + e.getMessage());
+        } finally {
+            FileUtil.close(out);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, "UTF8");
+    }
+
+    private static void writeString(DataOutputStream out, String str) throws IOException {
+        if (str == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = str.getBytes("UTF8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
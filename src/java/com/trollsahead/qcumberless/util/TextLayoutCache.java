@@ -0,0 +1,212 @@
+// Copyright (c) 2012, Daniel Andersen (dani_ande@yahoo.dk)
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this
+//    list of conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice,
+//    this list of conditions and the following disclaimer in the documentation
+//    and/or other materials provided with the distribution.
+// 3. The name of the author may not be used to endorse or promote products derived
+//    from this software without specific prior written permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+// ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+// WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+// DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+// ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+// LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+// ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+// (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+package com.trollsahead.qcumberless.util;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+public class TextLayoutCache {
+    private static final int ADVANCE_TABLE_SIZE = 0x300;
+    private static final int MAX_CACHED_WRAPS = 2048;
+
+    private static final Map<FontMetrics, float[]> advanceTables = new WeakHashMap<FontMetrics, float[]>();
+
+    private static final Map<WrapKey, List<String>> wrapCache = new LinkedHashMap<WrapKey, List<String>>(256, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<WrapKey, List<String>> eldest) {
+            return size() > MAX_CACHED_WRAPS;
+        }
+    };
+
+    private static volatile AdvanceTable lastAdvanceTable = null;
+
+    private static int wrapCacheHits = 0;
+    private static int wrapCacheMisses = 0;
+
+    public static int stringWidth(String text, FontMetrics fontMetrics) {
+        if (!isSimple(text)) {
+            return fontMetrics.stringWidth(text);
+        }
+        return round(advance(text, fontMetrics));
+    }
+
+    public static float advance(String text, FontMetrics fontMetrics) {
+        float[] advances = getAdvanceTable(fontMetrics);
+        float advance = 0.0f;
+        for (int i = 0; i < text.length(); i++) {
+            advance += getAdvance(advances, text.charAt(i), fontMetrics);
+        }
+        return advance;
+    }
+
+    public static int round(float advance) {
+        return (int) (0.5f + advance);
+    }
+
+    public static boolean isSimple(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= ADVANCE_TABLE_SIZE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static float[] getAdvanceTable(FontMetrics fontMetrics) {
+        AdvanceTable table = lastAdvanceTable;
+        if (table != null && table.fontMetrics == fontMetrics) {
+            return table.advances;
+        }
+        synchronized (advanceTables) {
+            float[] advances = advanceTables.get(fontMetrics);
+            if (advances == null) {
+                advances = new float[ADVANCE_TABLE_SIZE];
+                for (int i = 0; i < advances.length; i++) {
+                    advances[i] = -1.0f;
+                }
+                advanceTables.put(fontMetrics, advances);
+            }
+            lastAdvanceTable = new AdvanceTable(fontMetrics, advances);
+            return advances;
+        }
+    }
+
+    private static float getAdvance(float[] advances, char ch, FontMetrics fontMetrics) {
+        if (ch >= ADVANCE_TABLE_SIZE) {
+            return fontMetrics.charWidth(ch);
+        }
+        float advance = advances[ch];
+        if (advance < 0.0f) {
+            advance = (float) fontMetrics.getFont().getStringBounds(String.valueOf(ch), fontMetrics.getFontRenderContext()).getWidth();
+            advances[ch] = advance;
+        }
+        return advance;
+    }
+
+    public static List<String> wrapText(String text, int width, FontMetrics fontMetrics) {
+        if (text == null) {
+            return wrapText(text, width, fontMetrics, false);
+        }
+        WrapKey key = new WrapKey(text, width, fontMetrics);
+        synchronized (wrapCache) {
+            List<String> lines = wrapCache.get(key);
+            if (lines != null) {
+                wrapCacheHits++;
+                return lines;
+            }
+            wrapCacheMisses++;
+        }
+        List<String> lines = Collections.unmodifiableList(wrapText(text, width, fontMetrics, false));
+        synchronized (wrapCache) {
+            wrapCache.put(key, lines);
+        }
+        return lines;
+    }
+
+    public static List<String> wrapText(String text, int width, FontMetrics fontMetrics, boolean cache) {
+        if (cache) {
+            return wrapText(text, width, fontMetrics);
+        }
+        List<String> lines = new ArrayList<String>();
+        if (Util.isEmpty(text)) {
+            lines.add(text);
+            return lines;
+        }
+        text = Util.removePostfixedNewline(text);
+        boolean simple = isSimple(text);
+        if (!text.contains("\n") && (simple ? round(advance(text, fontMetrics)) : fontMetrics.stringWidth(text)) <= width) {
+            lines.add(text);
+            return lines;
+        }
+        for (String line : text.split("\n")) {
+            StringBuilder currentLine = new StringBuilder();
+            float lineAdvance = 0.0f;
+            for (String word : line.split(" ")) {
+                float wordAdvance = simple ? advance(word, fontMetrics) : 0.0f;
+                int lineWidth = simple ? round(lineAdvance + wordAdvance) : fontMetrics.stringWidth(currentLine.toString() + word);
+                if (lineWidth > width) {
+                    lines.add(currentLine.toString());
+                    currentLine.setLength(0);
+                    lineAdvance = 0.0f;
+                }
+                currentLine.append(word).append(" ");
+                if (simple) {
+                    lineAdvance += wordAdvance + advance(" ", fontMetrics);
+                }
+            }
+            if (!Util.isEmpty(currentLine.toString())) {
+                lines.add(currentLine.toString());
+            }
+        }
+        return lines;
+    }
+
+    public static String getStatistics() {
+        synchronized (wrapCache) {
+            int total = wrapCacheHits + wrapCacheMisses;
+            return "Wrap cache: " + wrapCache.size() + " entries, hits: " + (total > 0 ? (wrapCacheHits * 100 / total) + "%" : "-");
+        }
+    }
+
+    private static class WrapKey {
+        private final String text;
+        private final int width;
+        private final FontMetrics fontMetrics;
+        private final int hash;
+
+        private WrapKey(String text, int width, FontMetrics fontMetrics) {
+            this.text = text;
+            this.width = width;
+            this.fontMetrics = fontMetrics;
+            this.hash = (text.hashCode() * 31 + width) * 31 + System.identityHashCode(fontMetrics);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof WrapKey)) {
+                return false;
+            }
+            WrapKey key = (WrapKey) o;
+            return width == key.width && fontMetrics == key.fontMetrics && text.equals(key.text);
+        }
+    }
+
+    private static class AdvanceTable {
+        private final FontMetrics fontMetrics;
+        private final float[] advances;
+
+        private AdvanceTable(FontMetrics fontMetrics, float[] advances) {
+            this.fontMetrics = fontMetrics;
+            this.advances = advances;
+        }
+    }
+}
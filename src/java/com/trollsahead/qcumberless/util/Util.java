@@ -31,9 +31,13 @@ import com.trollsahead.qcumberless.model.Locale;
 import java.awt.*;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.security.MessageDigest;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -46,6 +50,16 @@ public class Util {
         }
     }
 
+    public static ExecutorService newDaemonExecutor(final String name) {
+        return Executors.newSingleThreadExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
     public static boolean isMac() {
         String os = System.getProperty("os.name").toLowerCase();
         return os.contains("mac");
@@ -222,32 +236,15 @@ public class Util {
         };
     }
 
-    public static List<String> wrapText(String text, int width, FontMetrics fontMetrics) {
-        LinkedList<String> lines = new LinkedList<String>();
-        if (isEmpty(text)) {
-            lines.add(text);
-            return lines;
-        }
-        text = removePostfixedNewline(text);
-        if (!text.contains("\n") && fontMetrics.stringWidth(text) <= width) {
-            lines.add(text);
-            return lines;
-        }
+    public static void colorToFloatArray(Color color, float[] components) {
+        components[0] = (float) color.getRed() / 255.0f;
+        components[1] = (float) color.getGreen() / 255.0f;
+        components[2] = (float) color.getBlue() / 255.0f;
+        components[3] = (float) color.getAlpha() / 255.0f;
+    }
 
-        for (String line : text.split("\n")) {
-            StringBuilder currentLine = new StringBuilder();
-            for (String word : line.split(" ")) {
-                if (fontMetrics.stringWidth(currentLine.toString() + word) > width) {
-                    lines.add(currentLine.toString());
-                    currentLine = new StringBuilder();
-                }
-                currentLine = currentLine.append(word).append(" ");
-            }
-            if (!isEmpty(currentLine.toString())) {
-                lines.add(currentLine.toString());
-            }
-        }
-        return lines;
+    public static List<String> wrapText(String text, int width, FontMetrics fontMetrics) {
+        return TextLayoutCache.wrapText(text, width, fontMetrics);
     }
 
     public static String convertSpacesToSlashes(String s) {
@@ -313,4 +310,18 @@ public class Util {
         }
         return sb;
     }
+
+    public static String md5(CharSequence text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            byte[] hash = digest.digest(text.toString().getBytes("UTF8"));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (Exception e) {
+            throw new RuntimeException("Could not calculate MD5 hash", e);
+        }
+    }
 }